@@ -0,0 +1,64 @@
+package com.example.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.entity.Account;
+import com.example.exception.LoginFailedException;
+import com.example.exception.LoginUnavailableException;
+import com.example.exception.RegisterFailedException;
+import com.example.exception.UsernameAlreadyExistsException;
+import com.example.service.AccountService;
+
+/**
+ * AccountService hot paths against a seeded database.
+ *
+ * For logins per second per core, run loginService with -t set to the number of cores, and divide the
+ * throughput by it. The password hasher is chosen with -jvmArgsAppend -Dsocialmedia.password.hasher=pbkdf2.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class AccountServiceBenchmark {
+
+    private final AtomicLong registered = new AtomicLong();
+    private AccountService accountService;
+
+    @Setup
+    public void setUp(SeededApp app) {
+        accountService = app.bean(AccountService.class);
+    }
+
+    @Benchmark
+    public Account loginService(SeededApp app) throws LoginFailedException, LoginUnavailableException {
+        return accountService.loginService(new Account(SeededApp.username(app.randomAccountIndex()), "password"));
+    }
+
+    @Benchmark
+    public Account loginServiceWrongPassword(SeededApp app) throws LoginUnavailableException {
+        try {
+            return accountService.loginService(new Account(SeededApp.username(app.randomAccountIndex()), "wrong"));
+        } catch (LoginFailedException e) {
+            return null;
+        }
+    }
+
+    @Benchmark
+    public Account registerService() throws RegisterFailedException, UsernameAlreadyExistsException {
+        return accountService.registerService(new Account("registered-" + registered.incrementAndGet(), "password"));
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.dto.AccountTimelines;
+import com.example.dto.MessagePage;
+import com.example.exception.InvalidPageRequestException;
+import com.example.service.MessageService;
+
+/**
+ * Building a feed: the newest limit messages of each of followed random accounts.
+ *
+ * perAccount reads one timeline page per account, as a client calling GET /accounts/{accountId}/messages?limit=
+ * for every account it follows; bulk reads them all with one getNewestMessagesByAccountIds and merges them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class FeedBenchmark {
+
+    @Param({"200"})
+    public int followed;
+
+    @Param({"20"})
+    public int limit;
+
+    private MessageService messageService;
+
+    @Setup
+    public void setUp(SeededApp app) {
+        messageService = app.bean(MessageService.class);
+    }
+
+    @Benchmark
+    public List<MessagePage> perAccount(SeededApp app) throws InvalidPageRequestException {
+        List<MessagePage> pages = new ArrayList<>(followed);
+        for (int accountId : followedAccounts(app))
+            pages.add(messageService.getMessagePageByAccountId(accountId, null, limit));
+        return pages;
+    }
+
+    @Benchmark
+    public AccountTimelines bulk(SeededApp app) throws InvalidPageRequestException {
+        List<Integer> accountIds = new ArrayList<>(followed);
+        for (int accountId : followedAccounts(app))
+            accountIds.add(accountId);
+        return messageService.getNewestMessagesByAccountIds(accountIds, limit, true);
+    }
+
+    private int[] followedAccounts(SeededApp app) {
+        int first = ThreadLocalRandom.current().nextInt(app.accounts);
+        int[] accountIds = new int[followed];
+        for (int i = 0; i < followed; i++)
+            accountIds[i] = app.accountIds[(first + i) % app.accounts];
+        return accountIds;
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.entity.Message;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+
+/**
+ * Writing a GET /messages body, a JSON array of messages, into a stream that discards it, optionally gzip
+ * compressed as Tomcat does: writeObject per message on a JsonGenerator, against one SequenceWriter for all
+ * of them as SocialMediaController does.
+ *
+ * The jsonBytes and wireBytes counters are the bytes of JSON produced and sent per second; run with -prof gc
+ * and divide gc.alloc.rate.norm by the bytes per op for the allocation per MB served.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({"10000"})
+    public int messages;
+
+    @Param({"false", "true"})
+    public boolean blackbird;
+
+    @Param({"false", "true"})
+    public boolean gzip;
+
+    private ObjectMapper objectMapper;
+    private ObjectWriter messageWriter;
+    private List<Message> body;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Served {
+        public long jsonBytes;
+        public long wireBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            jsonBytes = 0;
+            wireBytes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        if (blackbird)
+            objectMapper.registerModule(new BlackbirdModule());
+        messageWriter = objectMapper.writerFor(Message.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        body = new ArrayList<>(messages);
+        for (int i = 0; i < messages; i++)
+            body.add(new Message(i + 1, i % 1000 + 1, "seeded message " + i + " with some more text to read", 1669947792L + i));
+    }
+
+    @Benchmark
+    public void writeObject(Served served) throws IOException {
+        CountingOutputStream wire = new CountingOutputStream();
+        CountingOutputStream json = wire;
+        OutputStream out = wire;
+        if (gzip) {
+            out = new GZIPOutputStream(wire, 8192);
+            json = new CountingOutputStream(out);
+            out = json;
+        }
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.writeStartArray();
+            for (Message message : body)
+                generator.writeObject(message);
+            generator.writeEndArray();
+        }
+        served.jsonBytes += json.count;
+        served.wireBytes += wire.count;
+    }
+
+    @Benchmark
+    public void sequenceWriter(Served served) throws IOException {
+        CountingOutputStream wire = new CountingOutputStream();
+        CountingOutputStream json = wire;
+        OutputStream out = wire;
+        if (gzip) {
+            out = new GZIPOutputStream(wire, 8192);
+            json = new CountingOutputStream(out);
+            out = json;
+        }
+        try (SequenceWriter writer = messageWriter.writeValuesAsArray(out)) {
+            for (Message message : body)
+                writer.write(message);
+        }
+        served.jsonBytes += json.count;
+        served.wireBytes += wire.count;
+    }
+
+    /**
+     * Counts the bytes written, and passes them on if it wraps another stream.
+     */
+    private static final class CountingOutputStream extends OutputStream {
+        private final OutputStream next;
+        long count;
+
+        CountingOutputStream() {
+            this(null);
+        }
+
+        CountingOutputStream(OutputStream next) {
+            this.next = next;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            count++;
+            if (next != null)
+                next.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            count += len;
+            if (next != null)
+                next.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (next != null)
+                next.close();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.entity.Message;
+import com.example.repository.MessageRepository;
+
+/**
+ * Insert throughput of MessageRepository.saveAll, one transaction per batch, reported per message.
+ * Compares batch sizes, and with -jvmArgsAppend -Dspring.jpa.properties.socialmedia.id.allocation_size=1
+ * (and a matching sequence increment) the cost of one sequence call per row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class MessageInsertBenchmark {
+
+    private static final int MESSAGES_PER_INVOCATION = 500;
+
+    @Param({"1", "50", "500"})
+    public int batchSize;
+
+    private MessageRepository messageRepository;
+
+    @Setup
+    public void setUp(SeededApp app) {
+        messageRepository = app.bean(MessageRepository.class);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES_PER_INVOCATION)
+    public int insertMessages(SeededApp app) {
+        int inserted = 0;
+        List<Message> batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < MESSAGES_PER_INVOCATION; i++) {
+            batch.add(new Message(app.randomAccountId(), "inserted message", 1669947792L));
+            if (batch.size() == batchSize) {
+                inserted += messageRepository.saveAll(batch).size();
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty())
+            inserted += messageRepository.saveAll(batch).size();
+        return inserted;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.entity.Message;
+import com.example.exception.MessageCreationFailedException;
+import com.example.exception.MessageIdNotExistsException;
+import com.example.exception.MessageIngestRejectedException;
+import com.example.service.MessageService;
+
+/**
+ * MessageService hot paths against a seeded database.
+ * Throughput gives ops/s, SampleTime gives the latency percentiles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class MessageServiceBenchmark {
+
+    private MessageService messageService;
+
+    @Setup
+    public void setUp(SeededApp app) {
+        messageService = app.bean(MessageService.class);
+    }
+
+    @Benchmark
+    public Message createMessage(SeededApp app) throws MessageCreationFailedException, MessageIngestRejectedException {
+        return messageService.createMessage(new Message(app.randomAccountId(), "benchmark message", 1669947792L));
+    }
+
+    @Benchmark
+    public Message getMessageById(SeededApp app) throws MessageIdNotExistsException {
+        return messageService.getMessageById(app.randomMessageId());
+    }
+
+    @Benchmark
+    public List<Message> getAllMessagesByAccountId(SeededApp app) {
+        return messageService.getAllMessagesByAccountId(app.randomAccountId());
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.entity.Account;
+import com.example.entity.Message;
+import com.example.service.AccountService;
+import com.example.service.MessageService;
+
+/**
+ * A hostile request mix: invalidPercent of the calls fail validation, the rest succeed.
+ *
+ * Invalid messages are empty, too long or have no author; invalid registrations have a short password or an
+ * existing username; invalid logins have a wrong password. Each call returns whether it was accepted, so the
+ * cost of the rejected path, exceptions included, is what dominates. Run with -prof gc for the allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class RejectedRequestBenchmark {
+
+    private static final String TOO_LONG = "x".repeat(256);
+
+    @Param({"90"})
+    public int invalidPercent;
+
+    private final AtomicLong registered = new AtomicLong();
+    private MessageService messageService;
+    private AccountService accountService;
+
+    @Setup
+    public void setUp(SeededApp app) {
+        messageService = app.bean(MessageService.class);
+        accountService = app.bean(AccountService.class);
+    }
+
+    @Benchmark
+    public boolean createMessage(SeededApp app) {
+        int roll = ThreadLocalRandom.current().nextInt(100);
+        Message message;
+        if (roll >= invalidPercent)
+            message = new Message(app.randomAccountId(), "benchmark message", 1669947792L);
+        else if (roll % 3 == 0)
+            message = new Message(app.randomAccountId(), "", 1669947792L);
+        else if (roll % 3 == 1)
+            message = new Message(app.randomAccountId(), TOO_LONG, 1669947792L);
+        else
+            message = new Message(null, "benchmark message", 1669947792L);
+        try {
+            messageService.createMessage(message);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    @Benchmark
+    public boolean registerService(SeededApp app) {
+        int roll = ThreadLocalRandom.current().nextInt(100);
+        Account account;
+        if (roll >= invalidPercent)
+            account = new Account("rejected-mix-" + registered.incrementAndGet(), "password");
+        else if (roll % 2 == 0)
+            account = new Account("rejected-mix-short", "abc");
+        else
+            account = new Account(SeededApp.username(app.randomAccountIndex()), "password");
+        try {
+            accountService.registerService(account);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    @Benchmark
+    public boolean loginService(SeededApp app) {
+        boolean valid = ThreadLocalRandom.current().nextInt(100) >= invalidPercent;
+        try {
+            accountService.loginService(new Account(SeededApp.username(app.randomAccountIndex()), valid ? "password" : "wrong"));
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
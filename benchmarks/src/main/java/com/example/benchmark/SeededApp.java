@@ -0,0 +1,99 @@
+package com.example.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.SocialMediaApp;
+import com.example.entity.Account;
+import com.example.entity.Message;
+import com.example.repository.AccountRepository;
+import com.example.repository.MessageRepository;
+
+/**
+ * The application started once per trial, with its in-memory H2 database seeded with the given number of
+ * accounts and messages. Messages are spread evenly over the accounts.
+ *
+ * Benchmarks pick their inputs with the random* methods, so every thread reads a different part of the data.
+ */
+@State(Scope.Benchmark)
+public class SeededApp {
+
+    private static final int SEED_BATCH = 1000;
+
+    @Param({"1000"})
+    public int accounts;
+
+    @Param({"100000"})
+    public int messages;
+
+    ConfigurableApplicationContext context;
+    int[] accountIds;
+    int[] messageIds;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = SpringApplication.run(SocialMediaApp.class,
+                "--server.port=0", "--logging.level.root=WARN", "--spring.jpa.show-sql=false");
+        AccountRepository accountRepository = context.getBean(AccountRepository.class);
+        MessageRepository messageRepository = context.getBean(MessageRepository.class);
+
+        accountIds = new int[accounts];
+        List<Account> accountBatch = new ArrayList<>(SEED_BATCH);
+        for (int i = 0; i < accounts; i++) {
+            accountBatch.add(new Account(username(i), "password"));
+            if (accountBatch.size() == SEED_BATCH || i == accounts - 1) {
+                List<Account> saved = accountRepository.saveAll(accountBatch);
+                for (int j = 0; j < saved.size(); j++)
+                    accountIds[i - saved.size() + 1 + j] = saved.get(j).getAccountId();
+                accountBatch.clear();
+            }
+        }
+
+        messageIds = new int[messages];
+        List<Message> messageBatch = new ArrayList<>(SEED_BATCH);
+        for (int i = 0; i < messages; i++) {
+            messageBatch.add(new Message(accountIds[i % accounts], "seeded message " + i, 1669947792L + i));
+            if (messageBatch.size() == SEED_BATCH || i == messages - 1) {
+                List<Message> saved = messageRepository.saveAll(messageBatch);
+                for (int j = 0; j < saved.size(); j++)
+                    messageIds[i - saved.size() + 1 + j] = saved.get(j).getMessageId();
+                messageBatch.clear();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        SpringApplication.exit(context);
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    static String username(int index) {
+        return "bench-user-" + index;
+    }
+
+    int randomAccountIndex() {
+        return ThreadLocalRandom.current().nextInt(accounts);
+    }
+
+    int randomAccountId() {
+        return accountIds[randomAccountIndex()];
+    }
+
+    int randomMessageId() {
+        return messageIds[ThreadLocalRandom.current().nextInt(messages)];
+    }
+}
@@ -0,0 +1,266 @@
+package com.example.load;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.SocialMediaApp;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Open-model HTTP load generator for SocialMediaController.
+ *
+ * Requests are started at a fixed rate from one scheduling thread and sent asynchronously, so a slow response
+ * never delays the next request. Latency is measured from the time a request was scheduled to start, not from
+ * the time it was sent, which corrects for coordinated omission: if the generator or the client falls behind,
+ * the waiting shows up in the percentiles instead of being hidden.
+ *
+ * Run it with mvn -f benchmarks/pom.xml compile exec:exec -Pload -Dload.args="--rate=1000 --duration=60".
+ */
+public class LoadGenerator {
+
+    private static final int MESSAGE_RING = 1 << 14;
+
+    private final LoadOptions options;
+    private final HttpClient client;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String baseUrl;
+
+    private final Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> failures = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> rejections = new EnumMap<>(Operation.class);
+    private final Operation[] weightedOperations;
+
+    private final AtomicIntegerArray accountIds;
+    private final AtomicIntegerArray messageIds = new AtomicIntegerArray(MESSAGE_RING);
+    private final AtomicLong messageCursor = new AtomicLong();
+    private final AtomicLong registered = new AtomicLong();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+
+    private volatile long measureStart;
+
+    LoadGenerator(LoadOptions options, String baseUrl) {
+        this.options = options;
+        this.baseUrl = baseUrl;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.accountIds = new AtomicIntegerArray(options.accounts);
+        int totalWeight = options.mix.values().stream().mapToInt(Integer::intValue).sum();
+        this.weightedOperations = new Operation[totalWeight];
+        int i = 0;
+        for (Map.Entry<Operation, Integer> entry : options.mix.entrySet())
+            for (int w = 0; w < entry.getValue(); w++)
+                weightedOperations[i++] = entry.getKey();
+        for (Operation operation : Operation.values()) {
+            recorders.put(operation, new Recorder(3));
+            failures.put(operation, new LongAdder());
+            rejections.put(operation, new LongAdder());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadOptions options = LoadOptions.parse(args);
+        ConfigurableApplicationContext app = null;
+        String baseUrl = options.target;
+        if (baseUrl == null) {
+            app = SpringApplication.run(SocialMediaApp.class,
+                    "--server.port=0", "--logging.level.root=WARN", "--spring.jpa.show-sql=false");
+            baseUrl = "http://localhost:" + app.getEnvironment().getProperty("local.server.port");
+        }
+        try {
+            LoadGenerator generator = new LoadGenerator(options, baseUrl);
+            generator.seed();
+            generator.run();
+            generator.report(System.out);
+        } finally {
+            if (app != null)
+                SpringApplication.exit(app);
+        }
+    }
+
+    /**
+     * Registers the accounts the run logs in and posts as, with one message each, synchronously and unmeasured.
+     */
+    void seed() throws Exception {
+        for (int i = 0; i < options.accounts; i++) {
+            HttpResponse<String> registered = client.send(buildRequest(Operation.REGISTER, username(i), 0),
+                    HttpResponse.BodyHandlers.ofString());
+            if (registered.statusCode() != 200)
+                throw new IllegalStateException("could not register " + username(i) + ": " + registered.statusCode());
+            accountIds.set(i, objectMapper.readTree(registered.body()).get("accountId").asInt());
+            HttpResponse<String> posted = client.send(buildRequest(Operation.POST, null, accountIds.get(i)),
+                    HttpResponse.BodyHandlers.ofString());
+            if (posted.statusCode() != 200 || !rememberMessage(posted.body()))
+                throw new IllegalStateException("could not post as " + username(i) + ": " + posted.statusCode());
+        }
+    }
+
+    /**
+     * Schedules warmup plus duration seconds of requests at the configured rate, then waits for the stragglers.
+     */
+    void run() throws InterruptedException {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / options.rate;
+        long total = (long) options.rate * (options.warmup + options.duration);
+        long start = System.nanoTime();
+        measureStart = start + TimeUnit.SECONDS.toNanos(options.warmup);
+        for (long i = 0; i < total; i++) {
+            long intended = start + i * intervalNanos;
+            long wait = intended - System.nanoTime();
+            if (wait > 0)
+                LockSupport.parkNanos(wait);
+            fire(weightedOperations[ThreadLocalRandom.current().nextInt(weightedOperations.length)], intended);
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (inFlight.get() > 0 && System.nanoTime() < deadline)
+            Thread.sleep(10);
+    }
+
+    private void fire(Operation operation, long intended) {
+        HttpRequest request = buildRequest(operation, nextUsername(operation), randomAccountId());
+        inFlight.incrementAndGet();
+        client.sendAsync(request, HttpResponse.BodyHandlers.ofString()).whenComplete((response, error) -> {
+            long latency = System.nanoTime() - intended;
+            inFlight.decrementAndGet();
+            if (intended < measureStart)
+                return;
+            recorders.get(operation).recordValue(TimeUnit.NANOSECONDS.toMicros(latency));
+            if (error != null || response.statusCode() >= 500)
+                failures.get(operation).increment();
+            else if (response.statusCode() != 200)
+                rejections.get(operation).increment();
+            else if (operation == Operation.POST && !rememberMessage(response.body()))
+                failures.get(operation).increment();
+        });
+    }
+
+    private HttpRequest buildRequest(Operation operation, String username, int accountId) {
+        Map<String, Object> body = new HashMap<>();
+        switch (operation) {
+            case REGISTER:
+            case LOGIN:
+                body.put("username", username);
+                body.put("password", "password");
+                return post("/" + operation.name().toLowerCase(), body);
+            case POST:
+                body.put("postedBy", accountId);
+                body.put("messageText", "load test message");
+                body.put("timePostedEpoch", System.currentTimeMillis() / 1000);
+                return post("/messages", body);
+            case READ:
+                return request("/messages/" + randomMessageId()).GET().build();
+            case UPDATE:
+                body.put("messageText", "updated load test message");
+                return request("/messages/" + randomMessageId())
+                        .method("PATCH", HttpRequest.BodyPublishers.ofString(json(body))).build();
+            case DELETE:
+                return request("/messages/" + randomMessageId()).DELETE().build();
+            default:
+                throw new IllegalArgumentException(operation.name());
+        }
+    }
+
+    private HttpRequest post(String path, Map<String, Object> body) {
+        return request(path).POST(HttpRequest.BodyPublishers.ofString(json(body))).build();
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json");
+    }
+
+    private String json(Map<String, Object> body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String nextUsername(Operation operation) {
+        if (operation == Operation.REGISTER)
+            return "load-" + runId + "-new-" + registered.incrementAndGet();
+        return username(ThreadLocalRandom.current().nextInt(options.accounts));
+    }
+
+    private String username(int index) {
+        return "load-" + runId + "-" + index;
+    }
+
+    private int randomAccountId() {
+        return accountIds.get(ThreadLocalRandom.current().nextInt(options.accounts));
+    }
+
+    /**
+     * @return false if the body is not a message with a message id, which the caller counts as a failure.
+     */
+    private boolean rememberMessage(String body) {
+        JsonNode message;
+        try {
+            message = objectMapper.readTree(body);
+        } catch (Exception e) {
+            return false;
+        }
+        if (message == null || !message.has("messageId"))
+            return false;
+        messageIds.set((int) (messageCursor.getAndIncrement() & (MESSAGE_RING - 1)), message.get("messageId").asInt());
+        return true;
+    }
+
+    private int randomMessageId() {
+        int known = (int) Math.min(messageCursor.get(), MESSAGE_RING);
+        return known == 0 ? 0 : messageIds.get(ThreadLocalRandom.current().nextInt(known));
+    }
+
+    /**
+     * Prints one line per operation, with latencies in milliseconds, and writes the full distributions if asked.
+     * Failed counts transport errors, 5xx answers and POSTs answered without a message id.
+     * Rejected counts the 4xx answers, which the mix produces on purpose, e.g. updating a deleted message.
+     */
+    void report(PrintStream out) throws FileNotFoundException {
+        out.printf("%-22s %8s %8s %8s %9s %9s %9s %9s%n",
+                "endpoint", "count", "failed", "rejected", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Operation operation : options.mix.keySet()) {
+            Histogram histogram = recorders.get(operation).getIntervalHistogram();
+            out.printf("%-22s %8d %8d %8d %9.2f %9.2f %9.2f %9.2f%n",
+                    operation.endpoint(), histogram.getTotalCount(),
+                    failures.get(operation).sum(), rejections.get(operation).sum(),
+                    histogram.getValueAtPercentile(50) / 1000.0,
+                    histogram.getValueAtPercentile(99) / 1000.0,
+                    histogram.getValueAtPercentile(99.9) / 1000.0,
+                    histogram.getMaxValue() / 1000.0);
+            if (options.hgrm != null) {
+                File directory = new File(options.hgrm);
+                directory.mkdirs();
+                try (PrintStream file = new PrintStream(new File(directory, operation.name().toLowerCase() + ".hgrm"))) {
+                    histogram.outputPercentileDistribution(file, 1000.0);
+                }
+            }
+        }
+    }
+}
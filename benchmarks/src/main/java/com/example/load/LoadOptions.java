@@ -0,0 +1,65 @@
+package com.example.load;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Command line options of the load generator, given as --name=value.
+ *
+ * --target     base url of a running app; without it the app is started in-process on a free port
+ * --rate       requests per second, scheduled at fixed intervals whatever the response times are
+ * --duration   measured seconds
+ * --warmup     seconds of load before measuring
+ * --accounts   accounts registered before the run
+ * --mix        relative weights of the operations, for example read:70,post:10,login:10,update:5,delete:5
+ * --hgrm       directory to write one .hgrm percentile distribution per operation to
+ */
+public class LoadOptions {
+
+    String target;
+    int rate = 500;
+    int duration = 30;
+    int warmup = 5;
+    int accounts = 100;
+    String hgrm;
+    final Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+
+    static LoadOptions parse(String[] args) {
+        LoadOptions options = new LoadOptions();
+        options.parseMix("register:1,login:10,post:10,read:69,update:5,delete:5");
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("="))
+                throw new IllegalArgumentException("expected --name=value, got " + arg);
+            String name = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            switch (name) {
+                case "target": options.target = value; break;
+                case "rate": options.rate = Integer.parseInt(value); break;
+                case "duration": options.duration = Integer.parseInt(value); break;
+                case "warmup": options.warmup = Integer.parseInt(value); break;
+                case "accounts": options.accounts = Integer.parseInt(value); break;
+                case "mix": options.parseMix(value); break;
+                case "hgrm": options.hgrm = value; break;
+                default: throw new IllegalArgumentException("unknown option --" + name);
+            }
+        }
+        if (options.rate <= 0 || options.duration <= 0 || options.warmup < 0 || options.accounts <= 0)
+            throw new IllegalArgumentException("rate, duration and accounts must be positive");
+        return options;
+    }
+
+    private void parseMix(String value) {
+        mix.clear();
+        for (String entry : value.split(",")) {
+            String[] pair = entry.split(":");
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight < 0)
+                throw new IllegalArgumentException("negative weight in --mix: " + entry);
+            if (weight > 0)
+                mix.put(Operation.valueOf(pair[0].trim().toUpperCase(Locale.ROOT)), weight);
+        }
+        if (mix.isEmpty())
+            throw new IllegalArgumentException("--mix has no operations");
+    }
+}
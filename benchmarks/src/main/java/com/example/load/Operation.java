@@ -0,0 +1,23 @@
+package com.example.load;
+
+/**
+ * The SocialMediaController calls the load generator can replay. The names are the keys of the --mix option.
+ */
+public enum Operation {
+    REGISTER("POST /register"),
+    LOGIN("POST /login"),
+    POST("POST /messages"),
+    READ("GET /messages/{id}"),
+    UPDATE("PATCH /messages/{id}"),
+    DELETE("DELETE /messages/{id}");
+
+    private final String endpoint;
+
+    Operation(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    public String endpoint() {
+        return endpoint;
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Set of account ids known to exist, used to check message authors without reading the account table.
+ *
+ * The set is a lock-free open-addressing hash table of primitive ints with a fixed number of slots, so its
+ * memory is bounded and allocated once. Once it is three quarters full, new ids are no longer added and the
+ * callers fall back to the database for them. Ids are never removed: accounts are not deleted.
+ *
+ * Only positive ids can be stored, 0 marks an empty slot.
+ */
+@Component
+public class AccountIdCache {
+
+    private static final int EMPTY = 0;
+
+    private final AtomicIntegerArray slots;
+    private final int mask;
+    private final int maxSize;
+    private final LongAdder size = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param capacity the number of slots, rounded up to a power of two.
+     */
+    @Autowired
+    public AccountIdCache(@Value("${socialmedia.account-cache.capacity:1048576}") int capacity){
+        if (capacity < 2 || capacity > (1 << 30))
+            throw new IllegalArgumentException("socialmedia.account-cache.capacity must be between 2 and 2^30.");
+        int slotCount = Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new AtomicIntegerArray(slotCount);
+        this.mask = slotCount - 1;
+        this.maxSize = slotCount / 4 * 3;
+    }
+
+    /**
+     * Check whether an account id is known to exist, counting a hit or a miss.
+     * A miss does not mean the account does not exist, only that the caller has to ask the database.
+     * @param accountId the account id.
+     * @return true if the account exists.
+     */
+    public boolean contains(int accountId){
+        if (accountId > 0) {
+            for (int i = hash(accountId); ; i = (i + 1) & mask) {
+                int slot = slots.get(i);
+                if (slot == accountId) {
+                    hits.increment();
+                    return true;
+                }
+                if (slot == EMPTY)
+                    break;
+            }
+        }
+        misses.increment();
+        return false;
+    }
+
+    /**
+     * Remember that an account id exists.
+     * @param accountId the account id.
+     * @return true if the id is in the set afterwards, false if the set is full or the id is not positive.
+     */
+    public boolean add(int accountId){
+        if (accountId <= 0)
+            return false;
+        for (int i = hash(accountId); ; i = (i + 1) & mask) {
+            int slot = slots.get(i);
+            if (slot == accountId)
+                return true;
+            if (slot == EMPTY) {
+                if (size.sum() >= maxSize)
+                    return false;
+                if (slots.compareAndSet(i, EMPTY, accountId)) {
+                    size.increment();
+                    return true;
+                }
+                // Lost the race for this slot: look at it again, another thread may have put the same id there.
+                i = (i - 1) & mask;
+            }
+        }
+    }
+
+    /**
+     * @return the number of account ids in the set.
+     */
+    public long size(){
+        return size.sum();
+    }
+
+    /**
+     * @return the number of ids the set can hold.
+     */
+    public int maxSize(){
+        return maxSize;
+    }
+
+    /**
+     * @return the number of contains calls that found the id.
+     */
+    public long hitCount(){
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of contains calls that did not find the id.
+     */
+    public long missCount(){
+        return misses.sum();
+    }
+
+    private int hash(int key){
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.function.IntFunction;
+import com.example.entity.Message;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+/**
+ * Read-through cache of messages keyed by message id, in front of MessageRepository.findById.
+ *
+ * Bounded to socialmedia.message-cache.maximum-size entries, evicted with Caffeine's W-TinyLFU policy, which
+ * keeps the frequently read messages even under a scan of cold ones. Writers must keep it coherent: a text
+ * update patches the cached entry and a delete invalidates it, each after the database change. A load that
+ * is in flight for the same id finishes before the patch or invalidation is applied, so a stale row read
+ * before the change cannot overwrite it.
+ */
+@Component
+public class MessageCache {
+
+    private final Cache<Integer, Message> cache;
+
+    @Autowired
+    public MessageCache(@Value("${socialmedia.message-cache.maximum-size:100000}") long maximumSize){
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Get a message from the cache, loading it on a miss.
+     * @param messageId the message id.
+     * @param loader reads the message from the database, returns null if it does not exist.
+     * @return the message, or null if it does not exist. Absent messages are not cached.
+     */
+    public Message get(int messageId, IntFunction<Message> loader){
+        return this.cache.get(messageId, id -> loader.apply(id));
+    }
+
+    /**
+     * @param messageId the message id.
+     * @return the cached message, or null if it is not cached.
+     */
+    public Message getIfPresent(int messageId){
+        return this.cache.getIfPresent(messageId);
+    }
+
+    /**
+     * Cache a copy of a message that was just stored.
+     * @param message a message with its message id.
+     */
+    public void put(Message message){
+        this.cache.put(message.getMessageId(),
+                new Message(message.getMessageId(), message.getPostedBy(), message.getMessageText(), message.getTimePostedEpoch()));
+    }
+
+    /**
+     * Replace the text of a cached message, if it is cached.
+     * The cached instance is replaced rather than modified, since it may be shared with readers.
+     * @param messageId the message id.
+     * @param messageText the new message text.
+     */
+    public void updateText(int messageId, String messageText){
+        this.cache.asMap().computeIfPresent(messageId, (id, message) ->
+                new Message(message.getMessageId(), message.getPostedBy(), messageText, message.getTimePostedEpoch()));
+    }
+
+    /**
+     * @param messageId the id of a message that no longer exists.
+     */
+    public void invalidate(int messageId){
+        this.cache.invalidate(messageId);
+    }
+
+    /**
+     * @return the approximate number of cached messages.
+     */
+    public long size(){
+        return this.cache.estimatedSize();
+    }
+
+    /**
+     * @return hit, miss, load and eviction counts since startup.
+     */
+    public CacheStats stats(){
+        return this.cache.stats();
+    }
+
+    /**
+     * @return the underlying Caffeine cache, for metrics binding.
+     */
+    public Cache<Integer, Message> nativeCache(){
+        return this.cache;
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import com.example.event.MessageEvent;
+
+/**
+ * Change counters for conditional GETs, bumped from the MessageEvents published by MessageService.
+ *
+ * There is one counter for the whole message table, and socialmedia.versions.stripes counters each for
+ * message ids and for authors. Ids that share a stripe share a version, so a change can make a client
+ * reload a resource that did not change, never the other way round.
+ *
+ * A version is read before the data it describes, and bumped after the caches have applied the change. A
+ * change that lands in between is therefore reported under the old version, and the next conditional
+ * request reloads.
+ * ETags include the startup time, so they never match after a restart. They are weak: a gzip compressed and
+ * a plain response of the same version differ byte for byte, and Tomcat does not compress strong ETags.
+ */
+@Component
+public class MessageVersions {
+
+    private final String bootEpoch = Long.toString(System.currentTimeMillis(), 36);
+    private final long bootMillis = System.currentTimeMillis();
+    private final AtomicLong table = new AtomicLong();
+    private final AtomicLong tableModified = new AtomicLong(bootMillis);
+    private final AtomicLongArray messages;
+    private final AtomicLongArray messagesModified;
+    private final AtomicLongArray accounts;
+    private final AtomicLongArray accountsModified;
+    private final int mask;
+
+    @Autowired
+    public MessageVersions(@Value("${socialmedia.versions.stripes:65536}") int stripes){
+        if (stripes < 1 || Integer.bitCount(stripes) != 1)
+            throw new IllegalArgumentException("socialmedia.versions.stripes must be a power of two.");
+        this.mask = stripes - 1;
+        this.messages = new AtomicLongArray(stripes);
+        this.messagesModified = new AtomicLongArray(stripes);
+        this.accounts = new AtomicLongArray(stripes);
+        this.accountsModified = new AtomicLongArray(stripes);
+    }
+
+    /**
+     * @return the version of the whole message list.
+     */
+    public Version forTable(){
+        return new Version("W/\"" + bootEpoch + "-t" + table.get() + "\"", tableModified.get());
+    }
+
+    /**
+     * @param messageId the message id.
+     * @return the version of one message, present or not.
+     */
+    public Version forMessage(int messageId){
+        int stripe = stripe(messageId);
+        return new Version("W/\"" + bootEpoch + "-m" + messages.get(stripe) + "\"",
+                Math.max(bootMillis, messagesModified.get(stripe)));
+    }
+
+    /**
+     * @param postedBy the account id.
+     * @return the version of the messages of one account.
+     */
+    public Version forAccount(int postedBy){
+        int stripe = stripe(postedBy);
+        return new Version("W/\"" + bootEpoch + "-a" + accounts.get(stripe) + "\"",
+                Math.max(bootMillis, accountsModified.get(stripe)));
+    }
+
+    @EventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onMessageEvent(MessageEvent event){
+        long now = System.currentTimeMillis();
+        int messageStripe = stripe(event.getMessageId());
+        messages.incrementAndGet(messageStripe);
+        messagesModified.accumulateAndGet(messageStripe, now, Math::max);
+        int accountStripe = stripe(event.getPostedBy());
+        accounts.incrementAndGet(accountStripe);
+        accountsModified.accumulateAndGet(accountStripe, now, Math::max);
+        table.incrementAndGet();
+        tableModified.accumulateAndGet(now, Math::max);
+    }
+
+    private int stripe(int id){
+        return (id * 0x9E3779B9 >>> 16 ^ id * 0x9E3779B9) & mask;
+    }
+
+    /**
+     * An ETag and the time of the last change it covers.
+     */
+    public static final class Version {
+        private final String etag;
+        private final long lastModified;
+
+        Version(String etag, long lastModified){
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        /**
+         * Last-Modified has a one second resolution, so it is only given once the second of the last change is
+         * over; until then a second change in the same second could not be told apart.
+         * @return the time of the last change in epoch milliseconds, or -1 if it is too recent.
+         */
+        public long getLastModified() {
+            return lastModified / 1000 < System.currentTimeMillis() / 1000 ? lastModified : -1;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.IntFunction;
+import com.example.entity.Message;
+import com.example.event.MessageEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+/**
+ * Per-account timelines in memory, in front of MessageRepository.findByPostedBy.
+ *
+ * A timeline holds all messages of one account, in message id order. It is loaded on the first read of the
+ * account and then kept up to date from the MessageEvents published by MessageService, so profile reads do
+ * not touch the database. Accounts with more than socialmedia.timeline-cache.max-per-account messages are
+ * remembered as too large and always read from the database.
+ *
+ * The cache is bounded to socialmedia.timeline-cache.max-messages messages in total, and evicts cold accounts
+ * first. Every change to an account's timeline, loads and evictions included, happens atomically under that
+ * account's entry, so an event that arrives during a load is applied to the loaded timeline, never lost.
+ * Every event names the author, deletes included, so it always finds the timeline it belongs to.
+ */
+@Component
+public class TimelineCache {
+
+    private static final Comparator<Message> BY_MESSAGE_ID = Comparator.comparing(Message::getMessageId);
+
+    /**
+     * Timeline order: newest first, by timePostedEpoch then messageId, as the account message pages.
+     */
+    public static final Comparator<Message> NEWEST_FIRST =
+            Comparator.comparing(Message::getTimePostedEpoch).thenComparing(Message::getMessageId).reversed();
+
+    private final Cache<Integer, Timeline> cache;
+    private final int maxPerAccount;
+
+    @Autowired
+    public TimelineCache(@Value("${socialmedia.timeline-cache.max-messages:1000000}") long maxMessages,
+                         @Value("${socialmedia.timeline-cache.max-per-account:1000}") int maxPerAccount){
+        this.maxPerAccount = maxPerAccount;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxMessages)
+                .weigher((Integer postedBy, Timeline timeline) -> timeline.weight())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Get all messages of an account, loading its timeline on a miss.
+     * @param postedBy the account id.
+     * @param loader reads the messages of the account from the database.
+     * @return the messages in message id order. Do not modify.
+     */
+    public List<Message> get(int postedBy, IntFunction<List<Message>> loader){
+        List<List<Message>> loaded = new ArrayList<>(1);
+        Timeline timeline = this.cache.get(postedBy, id -> {
+            List<Message> rows = loader.apply(id);
+            loaded.add(rows);
+            return rows.size() > this.maxPerAccount ? Timeline.TOO_LARGE : Timeline.of(rows);
+        });
+        if (timeline != Timeline.TOO_LARGE)
+            return timeline.list();
+        List<Message> rows = new ArrayList<>(loaded.isEmpty() ? loader.apply(postedBy) : loaded.get(0));
+        rows.sort(BY_MESSAGE_ID);
+        return rows;
+    }
+
+    /**
+     * Get the newest messages of an account if its timeline is cached, without loading it.
+     * The newest first order of a timeline is sorted once, on the first call after it changed, and then sliced.
+     * @param postedBy the account id.
+     * @param limit the number of messages.
+     * @return at most limit messages, in NEWEST_FIRST order, or null if the timeline is not cached or too large.
+     *  Do not modify.
+     */
+    public List<Message> getNewestIfPresent(int postedBy, int limit){
+        Timeline timeline = this.cache.getIfPresent(postedBy);
+        if (timeline == null || timeline == Timeline.TOO_LARGE)
+            return null;
+        List<Message> newest = timeline.newestFirst();
+        return newest.subList(0, Math.min(limit, newest.size()));
+    }
+
+    /**
+     * Apply a committed change to the timeline of its author, if that timeline is cached.
+     * Runs before MessageVersions is bumped, so a new version never describes an old timeline.
+     */
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onMessageEvent(MessageEvent event){
+        this.cache.asMap().computeIfPresent(event.getPostedBy(), (id, timeline) -> {
+            if (timeline == Timeline.TOO_LARGE)
+                return timeline;
+            if (event.getType() == MessageEvent.Type.DELETED)
+                return timeline.without(event.getMessageId());
+            Timeline changed = timeline.with(event.getMessage());
+            return changed.size() > this.maxPerAccount ? Timeline.TOO_LARGE : changed;
+        });
+    }
+
+    /**
+     * @return the approximate number of cached accounts.
+     */
+    public long size(){
+        return this.cache.estimatedSize();
+    }
+
+    /**
+     * @return hit, miss, load and eviction counts since startup.
+     */
+    public CacheStats stats(){
+        return this.cache.stats();
+    }
+
+    /**
+     * @return the underlying Caffeine cache, for metrics binding.
+     */
+    public Cache<Integer, Timeline> nativeCache(){
+        return this.cache;
+    }
+
+    /**
+     * The messages of one account, sorted by message id. Immutable: changes return a new timeline, since
+     * readers may be serializing the old one.
+     */
+    public static final class Timeline {
+        static final Timeline TOO_LARGE = new Timeline(null);
+
+        private final Message[] messages;
+        // sorted on first use; a race only sorts twice, both results are equal
+        private volatile List<Message> newestFirst;
+
+        private Timeline(Message[] messages){
+            this.messages = messages;
+        }
+
+        static Timeline of(List<Message> rows){
+            Message[] messages = new Message[rows.size()];
+            for (int i = 0; i < messages.length; i++)
+                messages[i] = copy(rows.get(i));
+            Arrays.sort(messages, BY_MESSAGE_ID);
+            return new Timeline(messages);
+        }
+
+        int size(){
+            return messages.length;
+        }
+
+        int weight(){
+            return messages == null ? 1 : messages.length + 1;
+        }
+
+        List<Message> list(){
+            return Collections.unmodifiableList(Arrays.asList(messages));
+        }
+
+        List<Message> newestFirst(){
+            List<Message> sorted = newestFirst;
+            if (sorted == null) {
+                Message[] copy = messages.clone();
+                Arrays.sort(copy, NEWEST_FIRST);
+                newestFirst = sorted = Collections.unmodifiableList(Arrays.asList(copy));
+            }
+            return sorted;
+        }
+
+        /**
+         * @return a timeline with the message added, or replacing the message with the same id.
+         */
+        Timeline with(Message message){
+            int index = indexOf(message.getMessageId());
+            if (index >= 0) {
+                Message[] replaced = messages.clone();
+                replaced[index] = copy(message);
+                return new Timeline(replaced);
+            }
+            int insertAt = -index - 1;
+            Message[] grown = new Message[messages.length + 1];
+            System.arraycopy(messages, 0, grown, 0, insertAt);
+            grown[insertAt] = copy(message);
+            System.arraycopy(messages, insertAt, grown, insertAt + 1, messages.length - insertAt);
+            return new Timeline(grown);
+        }
+
+        Timeline without(int messageId){
+            int index = indexOf(messageId);
+            if (index < 0)
+                return this;
+            Message[] shrunk = new Message[messages.length - 1];
+            System.arraycopy(messages, 0, shrunk, 0, index);
+            System.arraycopy(messages, index + 1, shrunk, index, messages.length - index - 1);
+            return new Timeline(shrunk);
+        }
+
+        private int indexOf(int messageId){
+            int low = 0;
+            int high = messages.length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int id = messages[middle].getMessageId();
+                if (id < messageId)
+                    low = middle + 1;
+                else if (id > messageId)
+                    high = middle - 1;
+                else
+                    return middle;
+            }
+            return -(low + 1);
+        }
+
+        private static Message copy(Message message){
+            return new Message(message.getMessageId(), message.getPostedBy(), message.getMessageText(), message.getTimePostedEpoch());
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+
+/**
+ * Registers Jackson's Blackbird module on the application ObjectMapper, when socialmedia.json.blackbird=true.
+ *
+ * Blackbird replaces the reflective getter and setter calls of the bean serializers and deserializers, such
+ * as those of Message and Account, with lambdas generated through LambdaMetafactory, which the JIT inlines.
+ * Spring Boot adds every Module bean to the ObjectMapper, so the message converters of both controllers use it.
+ */
+@Configuration
+@ConditionalOnProperty(name = "socialmedia.json.blackbird", havingValue = "true", matchIfMissing = true)
+public class JsonConfiguration {
+
+    @Bean
+    public Module blackbirdModule(){
+        return new BlackbirdModule();
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.cache.AccountIdCache;
+import com.example.cache.MessageCache;
+import com.example.cache.TimelineCache;
+import com.example.security.CredentialVerifier;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+/**
+ * Binds the application's own caches and pools to the MeterRegistry, next to the meters Spring Boot binds.
+ *
+ * socialmedia.account-cache.requests counts AccountIdCache lookups by result (hit or miss), and
+ * socialmedia.account-cache.size is the number of account ids it holds. The Caffeine caches are bound with
+ * CaffeineCacheMetrics under the cache.* meters, tagged cache=messages, cache=timelines and cache=credentials,
+ * and the login verifier pool with ExecutorServiceMetrics under the executor.* meters, tagged name=login.
+ */
+@Configuration
+public class MetricsConfiguration {
+
+    @Bean
+    public MeterBinder accountIdCacheMetrics(AccountIdCache accountIdCache){
+        return registry -> {
+            FunctionCounter.builder("socialmedia.account-cache.requests", accountIdCache, AccountIdCache::hitCount)
+                .tag("result", "hit")
+                .description("AccountIdCache lookups that found the account id")
+                .register(registry);
+            FunctionCounter.builder("socialmedia.account-cache.requests", accountIdCache, AccountIdCache::missCount)
+                .tag("result", "miss")
+                .description("AccountIdCache lookups that had to ask the database")
+                .register(registry);
+            Gauge.builder("socialmedia.account-cache.size", accountIdCache, AccountIdCache::size)
+                .description("Account ids in the AccountIdCache")
+                .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder messageCacheMetrics(MessageCache messageCache, TimelineCache timelineCache){
+        return registry -> {
+            CaffeineCacheMetrics.monitor(registry, messageCache.nativeCache(), "messages");
+            CaffeineCacheMetrics.monitor(registry, timelineCache.nativeCache(), "timelines");
+        };
+    }
+
+    @Bean
+    public MeterBinder credentialVerifierMetrics(CredentialVerifier credentialVerifier){
+        return registry -> {
+            CaffeineCacheMetrics.monitor(registry, credentialVerifier.credentialCache(), "credentials");
+            new ExecutorServiceMetrics(credentialVerifier.executor(), "login", Tags.empty()).bindTo(registry);
+        };
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import com.example.ratelimit.RateLimitFilter;
+import com.example.ratelimit.RateLimitStore;
+import com.example.ratelimit.StripedRateLimitStore;
+
+/**
+ * Rate limits on the write endpoints, when socialmedia.rate-limit.enabled=true.
+ *
+ * Each client IP may make ip.per-second write requests per second with bursts of up to ip.burst, and each
+ * account (the username of a login, the postedBy of a message) account.per-second with bursts of account.burst.
+ * The buckets are in memory unless another RateLimitStore bean is declared. The filter is a servlet filter,
+ * so it does not apply under the reactive profile.
+ */
+@Configuration
+@ConditionalOnProperty(name = "socialmedia.rate-limit.enabled", havingValue = "true")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class RateLimitConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public RateLimitStore rateLimitStore(@Value("${socialmedia.rate-limit.stripes:65536}") int stripes){
+        return new StripedRateLimitStore(stripes);
+    }
+
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilter(RateLimitStore store, MeterRegistry meterRegistry,
+            @Value("${socialmedia.rate-limit.ip.per-second:50}") double ipPerSecond,
+            @Value("${socialmedia.rate-limit.ip.burst:100}") int ipBurst,
+            @Value("${socialmedia.rate-limit.account.per-second:5}") double accountPerSecond,
+            @Value("${socialmedia.rate-limit.account.burst:20}") int accountBurst){
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(new RateLimitFilter(store,
+                new RateLimitFilter.Limit(ipPerSecond, ipBurst),
+                new RateLimitFilter.Limit(accountPerSecond, accountBurst), meterRegistry));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Beans of the reactive profile.
+ *
+ * The services and repositories stay on JPA, so ReactiveSocialMediaController runs every database call on
+ * the bounded jdbcScheduler instead of the event loop. Its thread cap should match the Hikari pool: more
+ * threads would only wait for a connection. Calls beyond the queue capacity are rejected with 503.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveConfiguration {
+
+    @Bean(destroyMethod = "dispose")
+    public Scheduler jdbcScheduler(@Value("${socialmedia.reactive.jdbc-threads:10}") int threads,
+                                   @Value("${socialmedia.reactive.jdbc-queue-capacity:100000}") int queueCapacity){
+        return Schedulers.newBoundedElastic(threads, queueCapacity, "jdbc");
+    }
+}
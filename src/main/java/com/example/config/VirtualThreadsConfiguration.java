@@ -0,0 +1,51 @@
+package com.example.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.annotation.PreDestroy;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Runs every Tomcat request on its own virtual thread, when socialmedia.web.virtual-threads=true.
+ *
+ * The handlers block on JDBC, so with Tomcat's platform thread pool the number of requests in progress is
+ * capped by server.tomcat.threads.max. With virtual threads a blocked request only holds its connection and,
+ * while it talks to the database, a Hikari connection, so concurrency is bounded by server.tomcat.max-connections
+ * and spring.datasource.hikari.maximum-pool-size instead.
+ *
+ * Virtual threads need a Java 21 runtime. The application is still compiled for Java 11, so the executor is
+ * looked up reflectively, and starting with the mode on under an older runtime fails instead of silently
+ * falling back to the platform pool.
+ *
+ * The executor is deliberately not a bean: an Executor bean would make Spring Boot back off from its own
+ * applicationTaskExecutor, which @Async methods and async MVC requests run on.
+ */
+@Configuration
+@ConditionalOnProperty(name = "socialmedia.web.virtual-threads", havingValue = "true")
+public class VirtualThreadsConfiguration {
+
+    private final ExecutorService virtualThreadExecutor = newVirtualThreadPerTaskExecutor();
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(){
+        return protocolHandler -> protocolHandler.setExecutor(this.virtualThreadExecutor);
+    }
+
+    @PreDestroy
+    public void shutdown(){
+        this.virtualThreadExecutor.shutdown();
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor(){
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("socialmedia.web.virtual-threads needs a Java 21 runtime, running on "
+                    + Runtime.version(), e);
+        }
+    }
+}
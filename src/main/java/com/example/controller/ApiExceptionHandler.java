@@ -0,0 +1,92 @@
+package com.example.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.concurrent.RejectedExecutionException;
+import com.example.exception.*;
+
+/**
+ * Status codes of the rejected requests, for SocialMediaController and ReactiveSocialMediaController.
+ *
+ * The handlers let the service exceptions propagate, and each is answered here with an empty body:
+ * 400 for invalid input, 401 for wrong credentials, 409 for a taken username, and 503 when a queue or pool
+ * is full. Every kind of rejection is logged under its own message, which RepeatedMessageFilter rate limits.
+ */
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(ApiExceptionHandler.class);
+
+    @ExceptionHandler(RegisterFailedException.class)
+    public ResponseEntity<Void> registerFailed(RegisterFailedException e){
+        log.warn("Register failed: {}", e.getMessage());
+        return ResponseEntity.status(400).build();
+    }
+
+    @ExceptionHandler(UsernameAlreadyExistsException.class)
+    public ResponseEntity<Void> usernameAlreadyExists(UsernameAlreadyExistsException e){
+        log.warn("Register failed, username taken: {}", e.getMessage());
+        return ResponseEntity.status(409).build();
+    }
+
+    @ExceptionHandler(LoginFailedException.class)
+    public ResponseEntity<Void> loginFailed(LoginFailedException e){
+        log.warn("Login failed: {}", e.getMessage());
+        return ResponseEntity.status(401).build();
+    }
+
+    @ExceptionHandler(LoginUnavailableException.class)
+    public ResponseEntity<Void> loginUnavailable(LoginUnavailableException e){
+        log.warn("Login rejected: {}", e.getMessage());
+        return ResponseEntity.status(503).build();
+    }
+
+    @ExceptionHandler(MessageCreationFailedException.class)
+    public ResponseEntity<Void> messageCreationFailed(MessageCreationFailedException e){
+        log.warn("Message creation failed: {}", e.getMessage());
+        return ResponseEntity.status(400).build();
+    }
+
+    @ExceptionHandler(MessageIngestRejectedException.class)
+    public ResponseEntity<Void> messageIngestRejected(MessageIngestRejectedException e){
+        log.warn("Message creation rejected: {}", e.getMessage());
+        return ResponseEntity.status(503).build();
+    }
+
+    @ExceptionHandler(MessageTextException.class)
+    public ResponseEntity<Void> messageTextInvalid(MessageTextException e){
+        log.warn("Message update failed: {}", e.getMessage());
+        return ResponseEntity.status(400).build();
+    }
+
+    @ExceptionHandler(MessageIdNotExistsException.class)
+    public ResponseEntity<Void> messageIdNotExists(MessageIdNotExistsException e){
+        log.warn("Message does not exist: {}", e.getMessage());
+        return ResponseEntity.status(400).build();
+    }
+
+    @ExceptionHandler(InvalidPageRequestException.class)
+    public ResponseEntity<Void> invalidPageRequest(InvalidPageRequestException e){
+        log.warn("Invalid page request: {}", e.getMessage());
+        return ResponseEntity.status(400).build();
+    }
+
+    @ExceptionHandler(FeedSubscriptionRejectedException.class)
+    public ResponseEntity<Void> feedSubscriptionRejected(FeedSubscriptionRejectedException e){
+        log.warn("Feed subscription rejected: {}", e.getMessage());
+        return ResponseEntity.status(503).build();
+    }
+
+    /**
+     * The jdbcScheduler of the reactive profile is full.
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Void> executionRejected(RejectedExecutionException e){
+        log.warn("Request rejected: {}", e.getMessage());
+        return ResponseEntity.status(503).build();
+    }
+}
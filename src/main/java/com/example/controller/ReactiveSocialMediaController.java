@@ -0,0 +1,249 @@
+package com.example.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.MediaType;
+
+import com.example.dto.AccountTimelines;
+import com.example.dto.BatchItemResult;
+import com.example.dto.MessagePage;
+import com.example.entity.Account;
+import com.example.entity.Message;
+import com.example.service.AccountService;
+import com.example.service.MessageService;
+import com.example.exception.*;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * The same endpoints as SocialMediaController, served non-blocking on the WebFlux event loop.
+ * Active with the reactive profile, which also switches the server to Netty.
+ *
+ * The services are blocking JPA code, so every call into them is moved to the bounded jdbcScheduler and
+ * the event loop threads never wait on the database. Login already runs on the CredentialVerifier pool.
+ * When the jdbcScheduler queue is full the request is rejected with 503. Errors are mapped to status codes by
+ * ApiExceptionHandler, as for SocialMediaController.
+ *
+ * The unpaged lists are returned as Flux<Message>, sent as a JSON array, or as NDJSON when the request accepts
+ * application/x-ndjson. All messages are read from the database one page of socialmedia.reactive.page-size
+ * messages at a time, and only when the client has consumed the previous page, so a slow client holds no
+ * connection and no more than one page of messages. The messages of an account come from the same cached
+ * timeline as SocialMediaController serves, in the same order.
+ */
+@RestController
+@Profile("reactive")
+public class ReactiveSocialMediaController {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveSocialMediaController.class);
+
+    private AccountService accountService;
+    private MessageService messageService;
+    private Scheduler jdbcScheduler;
+    private int pageSize;
+
+    @Autowired
+    public ReactiveSocialMediaController(AccountService accountService, MessageService messageService, Scheduler jdbcScheduler,
+                                         @Value("${socialmedia.reactive.page-size:256}") int pageSize){
+        this.accountService = accountService;
+        this.messageService = messageService;
+        this.jdbcScheduler = jdbcScheduler;
+        this.pageSize = Math.min(Math.max(pageSize, 1), MessageService.MAX_PAGE_SIZE);
+    }
+
+    /**
+     * Handler to create new account, as SocialMediaController.registerHandler.
+     * @param inputAccount repuest body, should contain username, password.
+     * @return Mono<ResponseEntity<Account>>
+     */
+    @PostMapping(value="/register")
+    public Mono<ResponseEntity<Account>> registerHandler(@RequestBody Account inputAccount){
+        return jdbc(() -> this.accountService.registerService(inputAccount))
+            .map(account -> ResponseEntity.status(200).body(account));
+    }
+
+    /**
+     * Handler to check user login, as SocialMediaController.loginHandler.
+     * @param inputAccount repuest body, should contain username, password.
+     * @return Mono<ResponseEntity<Account>>
+     */
+    @PostMapping(value="/login")
+    public Mono<ResponseEntity<Account>> loginHandler(@RequestBody Account inputAccount){
+        return Mono.fromFuture(this.accountService.loginServiceAsync(inputAccount))
+            .map(account -> ResponseEntity.status(200).body(account));
+    }
+
+    /**
+     * Handler to create new Message, as SocialMediaController.createMessageHandler.
+     * @param inputMessage Request body, should contain message text and postedBy
+     * @return Mono<ResponseEntity<Message>>
+     */
+    @PostMapping(value="/messages")
+    public Mono<ResponseEntity<Message>> createMessageHandler(@RequestBody Message inputMessage){
+        return jdbc(() -> this.messageService.createMessage(inputMessage))
+            .map(message -> ResponseEntity.status(200).body(message));
+    }
+
+    /**
+     * Handler to create a batch of new Messages in one request, as SocialMediaController.createMessageBatchHandler.
+     * @param inputMessages Request body, a JSON list of messages
+     * @return Mono<ResponseEntity<List<BatchItemResult>>>
+     */
+    @PostMapping(value="/messages/batch")
+    public Mono<ResponseEntity<List<BatchItemResult>>> createMessageBatchHandler(@RequestBody List<Message> inputMessages){
+        return jdbc(() -> this.messageService.createMessages(inputMessages))
+            .map(results -> ResponseEntity.status(200).body(results));
+    }
+
+    /**
+     * Handler to stream all messages, in message id order.
+     * @return Flux<Message>
+     */
+    @GetMapping(value="/messages", produces={MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<Message> queryAllMessageHandler(){
+        return jdbc(() -> this.messageService.getMessagePage(0, this.pageSize))
+            .expand(page -> page.getNextCursor() == null ? Mono.empty()
+                : jdbc(() -> this.messageService.getMessagePage(Integer.parseInt(page.getNextCursor()), this.pageSize)))
+            .concatMapIterable(MessagePage::getMessages, 1);
+    }
+
+    /**
+     * Handler to query several messages by message id in one request, as SocialMediaController.queryMessagesByIdsHandler.
+     * @param ids the message ids
+     * @return Mono<ResponseEntity<List<Message>>>
+     */
+    @GetMapping(value="/messages", params="ids")
+    public Mono<ResponseEntity<List<Message>>> queryMessagesByIdsHandler(@RequestParam List<Integer> ids){
+        return jdbc(() -> this.messageService.getMessagesByIds(ids))
+            .map(messages -> ResponseEntity.status(200).body(messages));
+    }
+
+    /**
+     * Handler to query one page of messages, as SocialMediaController.queryMessagePageHandler.
+     * @param after the nextCursor of the previous page, omitted for the first page.
+     * @param limit the page size, between 1 and MessageService.MAX_PAGE_SIZE.
+     * @return Mono<ResponseEntity<MessagePage>>
+     */
+    @GetMapping(value="/messages", params="limit")
+    public Mono<ResponseEntity<MessagePage>> queryMessagePageHandler(@RequestParam(defaultValue="0") int after, @RequestParam int limit){
+        return jdbc(() -> this.messageService.getMessagePage(after, limit))
+            .map(page -> ResponseEntity.status(200).body(page));
+    }
+
+    /**
+     * Handler to search messages by text, as SocialMediaController.searchMessagesHandler.
+     * @param q the words to look for.
+     * @param cursor the nextCursor of the previous page, omitted for the first page.
+     * @param limit the page size, between 1 and MessageService.MAX_PAGE_SIZE, 20 if omitted.
+     * @return Mono<ResponseEntity<MessagePage>>
+     */
+    @GetMapping(value="/messages/search")
+    public Mono<ResponseEntity<MessagePage>> searchMessagesHandler(@RequestParam String q,
+            @RequestParam(required=false) String cursor, @RequestParam(defaultValue="20") int limit){
+        return jdbc(() -> this.messageService.searchMessages(q, cursor, limit))
+            .map(page -> ResponseEntity.status(200).body(page));
+    }
+
+    /**
+     * Handler to query a message by message id, as SocialMediaController.queryMessageByIdHandler.
+     * @param messageId the ID of the message to be retrieved
+     * @return Mono<ResponseEntity<Message>>
+     */
+    @GetMapping(value="/messages/{messageId}")
+    public Mono<ResponseEntity<Message>> queryMessageByIdHandler(@PathVariable String messageId){
+        return jdbc(() -> this.messageService.getMessageById(Integer.valueOf(messageId)))
+            .map(message -> ResponseEntity.status(200).body(message))
+            .onErrorResume(MessageIdNotExistsException.class, e -> {
+                log.warn("Message does not exist: {}", e.getMessage());
+                return Mono.empty();
+            })
+            .defaultIfEmpty(ResponseEntity.status(200).build());
+    }
+
+    /**
+     * Delete a message by message id, as SocialMediaController.deleteMessageByIdHandler.
+     * @param messageId the ID of the message to be deleted
+     * @return Mono<ResponseEntity<Integer>>
+     */
+    @DeleteMapping(value="/messages/{messageId}")
+    public Mono<ResponseEntity<Integer>> deleteMessageByIdHandler(@PathVariable String messageId){
+        return jdbc(() -> this.messageService.deleteMessageById(Integer.valueOf(messageId)))
+            .map(recordsDeleted -> recordsDeleted == 1?
+                ResponseEntity.status(200).body(1) : ResponseEntity.status(200).<Integer>build());
+    }
+
+    /**
+     * Update an exist message, as SocialMediaController.updateMessageByIdHandler.
+     * @param messageId the ID of the message to be updated
+     * @param inputMessage request body should only contain message text
+     * @return Mono<ResponseEntity<Integer>>
+     */
+    @PatchMapping(value="/messages/{messageId}")
+    public Mono<ResponseEntity<Integer>> updateMessageByIdHandler(@PathVariable String messageId, @RequestBody Message inputMessage){
+        return jdbc(() -> this.messageService.updateMessageText(Integer.valueOf(messageId), inputMessage.getMessageText()))
+            .map(recordsUpdated -> ResponseEntity.status(200).body(recordsUpdated));
+    }
+
+    /**
+     * Query the newest messages of several accounts, as SocialMediaController.queryNewestMessagesByAccountIdsHandler.
+     * @param ids the account ids, a comma separated list
+     * @param limit the number of messages per account, 20 if omitted.
+     * @param merged whether to also return the merged list.
+     * @return Mono<ResponseEntity<AccountTimelines>>
+     */
+    @GetMapping(value="/accounts/messages")
+    public Mono<ResponseEntity<AccountTimelines>> queryNewestMessagesByAccountIdsHandler(@RequestParam List<Integer> ids,
+            @RequestParam(defaultValue="20") int limit, @RequestParam(defaultValue="false") boolean merged){
+        return jdbc(() -> this.messageService.getNewestMessagesByAccountIds(ids, limit, merged))
+            .map(timelines -> ResponseEntity.status(200).body(timelines));
+    }
+
+    /**
+     * Stream all messages by account id, in message id order, as SocialMediaController.queryAllMessagesByAccountIdHandler.
+     * @param accountId the ID of the account whose messages are to be retrieved
+     * @return Flux<Message>
+     */
+    @GetMapping(value="/accounts/{accountId}/messages", produces={MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<Message> queryAllMessagesByAccountIdHandler(@PathVariable String accountId){
+        return jdbc(() -> this.messageService.getAllMessagesByAccountId(Integer.valueOf(accountId)))
+            .flatMapIterable(messages -> messages);
+    }
+
+    /**
+     * Query one page of the messages of an account, as SocialMediaController.queryMessagePageByAccountIdHandler.
+     * @param accountId the ID of the account whose messages are to be retrieved
+     * @param before the nextCursor of the previous page, omitted for the first page.
+     * @param limit the page size, between 1 and MessageService.MAX_PAGE_SIZE.
+     * @return Mono<ResponseEntity<MessagePage>>
+     */
+    @GetMapping(value="/accounts/{accountId}/messages", params="limit")
+    public Mono<ResponseEntity<MessagePage>> queryMessagePageByAccountIdHandler(@PathVariable String accountId,
+            @RequestParam(required=false) String before, @RequestParam int limit){
+        return jdbc(() -> this.messageService.getMessagePageByAccountId(Integer.valueOf(accountId), before, limit))
+            .map(page -> ResponseEntity.status(200).body(page));
+    }
+
+    /**
+     * Run a blocking service call on the jdbcScheduler.
+     * A null result completes empty.
+     */
+    private <T> Mono<T> jdbc(Callable<T> call){
+        return Mono.fromCallable(call).subscribeOn(this.jdbcScheduler);
+    }
+}
@@ -1,7 +1,10 @@
 package com.example.controller;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.apache.tomcat.jni.User;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -9,18 +12,38 @@ import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 
+import com.example.cache.MessageVersions;
+import com.example.dto.AccountTimelines;
+import com.example.dto.BatchItemResult;
+import com.example.dto.MessagePage;
 import com.example.entity.Account;
 import com.example.entity.Message;
 import com.example.exception.RegisterFailedException;
 import com.example.service.AccountService;
+import com.example.service.MessageFeed;
 import com.example.service.MessageService;
 import com.example.exception.*;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * TODO: You will need to write your own endpoints and handlers for your controller using Spring. The endpoints you will need can be
@@ -30,15 +53,32 @@ import java.util.ArrayList;
  */
 
 @RestController
+@Profile("!reactive")
  public class SocialMediaController {
 
+    private static final Logger log = LoggerFactory.getLogger(SocialMediaController.class);
+
+    /**
+     * Media type of the streaming variant of GET /messages, one JSON message per line.
+     */
+    public static final String NDJSON = "application/x-ndjson";
+
     private AccountService accountService;
     private MessageService messageService;
+    private MessageFeed messageFeed;
+    private MessageVersions messageVersions;
+    private ObjectMapper objectMapper;
+    private ObjectWriter messageWriter;
 
     @Autowired
-    public SocialMediaController(AccountService accountService, MessageService messageService){
+    public SocialMediaController(AccountService accountService, MessageService messageService, MessageFeed messageFeed,
+                                 MessageVersions messageVersions, ObjectMapper objectMapper){
         this.accountService = accountService;
         this.messageService = messageService;
+        this.messageFeed = messageFeed;
+        this.messageVersions = messageVersions;
+        this.objectMapper = objectMapper;
+        this.messageWriter = objectMapper.writerFor(Message.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
 
     /**
@@ -51,91 +91,203 @@ import java.util.ArrayList;
      * @return ResponseEntity<Account>
      */
     @PostMapping(value="/register")
-    public ResponseEntity<Account> registerHandler(@RequestBody Account inputAccount){
-        try {
-            Account account = this.accountService.registerService(inputAccount);
-            return ResponseEntity.status(200)
-                                 .body(account);
-        } catch (RegisterFailedException e) {
-            System.err.println("Register failed: " + e.getMessage());
-            return ResponseEntity.status(400)
-                                 .body(null);
-        } catch (UsernameAlreadyExistsException e){
-            System.err.println("Register failed: " + e.getMessage());
-            return ResponseEntity.status(409)
-                                 .body(null);
-        }
+    public ResponseEntity<Account> registerHandler(@RequestBody Account inputAccount)
+            throws RegisterFailedException, UsernameAlreadyExistsException{
+        Account account = this.accountService.registerService(inputAccount);
+        return ResponseEntity.status(200)
+                             .body(account);
     }
     /**
      * Handler to check user login.
      * Success when username exist, and password matches.
+     * The credentials are checked on the CredentialVerifier pool, the request thread is released meanwhile.
      * If success, return account JSON with account id, with status code 200.
+     * If too many logins are in progress, return 503.
      * Otherwise, return 401.
      * @param inputAccount repuest body, should contain username, password.
-     * @return ResponseEntity<Account>
+     * @return CompletableFuture<ResponseEntity<Account>>
      */
     @PostMapping(value="/login")
-    public ResponseEntity<Account> loginHandler(@RequestBody Account inputAccount){
-        try {
-            Account account = this.accountService.loginService(inputAccount);
-            return ResponseEntity.status(200)
-                                 .body(account);
-        } catch (LoginFailedException e) {
-            System.err.println("Login failed: " + e.getMessage());
-            return ResponseEntity.status(401)
-                                 .body(null);
-        }
+    public CompletableFuture<ResponseEntity<Account>> loginHandler(@RequestBody Account inputAccount){
+        return this.accountService.loginServiceAsync(inputAccount)
+            .thenApply(account -> ResponseEntity.status(200)
+                                                .body(account));
     }
 
     /**
      * Handler to create new Message
      * Success if messageText length > 0 and <= 255, and postedBy matches an exist account id.
      * If success, return Message JSON with message id, with status 200.
+     * If the ingest queue is enabled and full, status 503.
      * Otherwise status 400.
      * @param message Request body, should contain message text and postedBy
      * @return ResponseEntity<Message>
      */
     @PostMapping(value="/messages")
-    public ResponseEntity<Message> createMessageHandler(@RequestBody Message inputMessage){
+    public ResponseEntity<Message> createMessageHandler(@RequestBody Message inputMessage)
+            throws MessageCreationFailedException, MessageIngestRejectedException{
         try{
             Message message = this.messageService.createMessage(inputMessage);
             return ResponseEntity.status(200)
                                  .body(message);
-        } catch(MessageCreationFailedException e) {
-            System.err.println("Message creation failed: " + e.getMessage());
-            return ResponseEntity.status(400)
-                                 .body(null);
-        } catch (Exception e) {
-            System.err.println("Unexpected error: " + e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Unexpected error creating a message", e);
             return ResponseEntity.status(400).body(null);
         }
     }
 
+    /**
+     * Handler to create a batch of new Messages in one request.
+     * Each message follows the same rules as POST /messages, and an invalid message does not fail the others.
+     * Return one result per message in request order, with status 200: the item status is 200 with the
+     * message JSON with message id, or 400 with the reason.
+     * If the batch holds more than MessageService.MAX_BATCH_SIZE messages, return 400.
+     * @param inputMessages Request body, a JSON list of messages
+     * @return ResponseEntity<List<BatchItemResult>>
+     */
+    @PostMapping(value="/messages/batch")
+    public ResponseEntity<List<BatchItemResult>> createMessageBatchHandler(@RequestBody List<Message> inputMessages)
+            throws MessageCreationFailedException{
+        return ResponseEntity.status(200)
+                             .body(this.messageService.createMessages(inputMessages));
+    }
+
     /**
      * Handler to query all messages.
-     * Return all messages, with status 200.
-     * @return ResponseEntity<List<Message>>
+     * Return all messages as a JSON array, in message id order, with status 200.
+     * Messages are written straight into the response while they are read from the database in seek pages,
+     * so the table is never held in memory, neither as a list nor as a serialized body, and no connection is
+     * held while the client downloads.
+     * If nothing changed since the ETag or Last-Modified the client sent, return 304 without reading them.
+     * @return ResponseEntity<StreamingResponseBody>
      */
     @GetMapping(value="/messages")
-    public ResponseEntity<List<Message>> queryAllMessageHandler(){
-        return ResponseEntity.status(200).body(this.messageService.getAllMessages());
+    public ResponseEntity<StreamingResponseBody> queryAllMessageHandler(WebRequest webRequest){
+        if (notModified(webRequest, this.messageVersions.forTable()))
+            return null;
+        return ResponseEntity.status(200)
+                             .contentType(MediaType.APPLICATION_JSON)
+                             .body(outputStream -> writeAllMessages(outputStream, false));
+    }
+
+    /**
+     * Handler to query several messages by message id in one request.
+     * Selected when the request has an ids parameter, a comma separated list of message ids.
+     * Return one entry per id in request order, null where the message does not exist, with status 200.
+     * If there are more than MessageService.MAX_PAGE_SIZE ids, return 400.
+     * @param ids the message ids
+     * @return ResponseEntity<List<Message>>
+     */
+    @GetMapping(value="/messages", params="ids")
+    public ResponseEntity<List<Message>> queryMessagesByIdsHandler(@RequestParam List<Integer> ids)
+            throws InvalidPageRequestException{
+        return ResponseEntity.status(200).body(this.messageService.getMessagesByIds(ids));
+    }
+
+    /**
+     * Handler to query one page of messages, in message id order.
+     * Selected when the request has a limit parameter.
+     * If the cursor and limit are valid, return the page with the cursor of the next page, with status 200.
+     * Otherwise, return 400.
+     * @param after the nextCursor of the previous page, omitted for the first page.
+     * @param limit the page size, between 1 and MessageService.MAX_PAGE_SIZE.
+     * @return ResponseEntity<MessagePage>
+     */
+    @GetMapping(value="/messages", params="limit")
+    public ResponseEntity<MessagePage> queryMessagePageHandler(@RequestParam(defaultValue="0") int after, @RequestParam int limit)
+            throws InvalidPageRequestException{
+        return ResponseEntity.status(200).body(this.messageService.getMessagePage(after, limit));
+    }
+
+    /**
+     * Handler to stream all messages as NDJSON, in message id order.
+     * Selected when the request accepts application/x-ndjson.
+     * Messages are written while they are read from the database in seek pages, so neither side holds the whole table.
+     * @return ResponseEntity<StreamingResponseBody>
+     */
+    @GetMapping(value="/messages", produces=NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamAllMessageHandler(){
+        return ResponseEntity.status(200)
+                             .contentType(MediaType.parseMediaType(NDJSON))
+                             .body(outputStream -> writeAllMessages(outputStream, true));
+    }
+
+    /**
+     * Write every message, in message id order, as a JSON array or as NDJSON.
+     * One SequenceWriter serializes all of them, so the per-call setup of writeObject is paid once instead of
+     * once per message. It does not flush after each message: the generator fills its recycled buffer and
+     * writes it into the response buffer, which Tomcat sends when full.
+     */
+    private void writeAllMessages(OutputStream outputStream, boolean ndjson) throws IOException {
+        try (JsonGenerator generator = this.objectMapper.getFactory().createGenerator(outputStream)) {
+            try (SequenceWriter writer = ndjson
+                    ? this.messageWriter.withRootValueSeparator((String) null).writeValues(generator)
+                    : this.messageWriter.writeValuesAsArray(generator)) {
+                this.messageService.forEachMessage(message -> {
+                    try {
+                        writer.write(message);
+                        if (ndjson)
+                            generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Handler to search messages by text.
+     * Matches contain every word of q, ignoring case, best match first.
+     * If the query, cursor and limit are valid, return the page with the cursor of the next page, with status 200.
+     * Otherwise, return 400.
+     * @param q the words to look for.
+     * @param cursor the nextCursor of the previous page, omitted for the first page.
+     * @param limit the page size, between 1 and MessageService.MAX_PAGE_SIZE, 20 if omitted.
+     * @return ResponseEntity<MessagePage>
+     */
+    @GetMapping(value="/messages/search")
+    public ResponseEntity<MessagePage> searchMessagesHandler(@RequestParam String q,
+            @RequestParam(required=false) String cursor, @RequestParam(defaultValue="20") int limit)
+            throws InvalidPageRequestException{
+        return ResponseEntity.status(200).body(this.messageService.searchMessages(q, cursor, limit));
+    }
+
+    /**
+     * Handler to subscribe to the live feed of message changes, as Server-Sent Events.
+     * Each event is named created, updated or deleted, has the event id to resume from, and the change as JSON data.
+     * A reconnecting client sends the Last-Event-ID header and first gets the events it missed.
+     * If too many clients are subscribed, return 503.
+     * @param postedBy only send the changes of this account id, omitted for all.
+     * @param lastEventId the id of the last event received before reconnecting.
+     * @return ResponseEntity<SseEmitter>
+     */
+    @GetMapping(value="/messages/stream", produces=MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamMessageEventsHandler(@RequestParam(required=false) Integer postedBy,
+            @RequestHeader(value="Last-Event-ID", required=false) String lastEventId) throws FeedSubscriptionRejectedException{
+        return ResponseEntity.status(200).body(this.messageFeed.subscribe(postedBy, lastEventId));
     }
 
     /**
      * Handler to query a message by message id.
      * If Message exist, return JSON message with status 200.
      * Otherwise, return empty with status 400.
+     * If the message did not change since the ETag or Last-Modified the client sent, return 304 without reading it.
      * @param messageId the ID of the message to be retrieved
      * @return ResponseEntity<Message>
      */
     @GetMapping(value="/messages/{messageId}")
-    public ResponseEntity<Message> queryMessageByIdHandler(@PathVariable String messageId){
+    public ResponseEntity<Message> queryMessageByIdHandler(@PathVariable String messageId, WebRequest webRequest){
+        if (notModified(webRequest, this.messageVersions.forMessage(Integer.valueOf(messageId))))
+            return null;
         try{
             Message message = this.messageService.getMessageById(Integer.valueOf(messageId));
             return ResponseEntity.status(200)
                                  .body(message);
         } catch(MessageIdNotExistsException e){
-            System.err.println("Message does not exist: " + e.getMessage());
+            log.warn("Message does not exist: {}", e.getMessage());
             return ResponseEntity.status(200)
                                  .body(null);
         }
@@ -169,34 +321,71 @@ import java.util.ArrayList;
      * @return
      */
     @PatchMapping(value="/messages/{messageId}")
-    public ResponseEntity<Integer> updateMessageByIdHandler(@PathVariable String messageId, @RequestBody Message inputMessage){
+    public ResponseEntity<Integer> updateMessageByIdHandler(@PathVariable String messageId, @RequestBody Message inputMessage)
+            throws MessageTextException, MessageIdNotExistsException{
 
         String messageText = inputMessage.getMessageText();
 
-        try{
-            int recordsUpdated = this.messageService.updateMessageText(Integer.valueOf(messageId), messageText);
-            return ResponseEntity.status(200)
-                                 .body(1);
-        } catch(MessageIdNotExistsException e){
-            System.err.println("Message update failed: " + e.getMessage());
-            return ResponseEntity.status(400)
-                                 .body(null);
-        } catch(MessageTextException e) {
-            System.err.println("Message update failed: " + e.getMessage());
-            return ResponseEntity.status(400)
-                                 .body(null);
-        }
+        int recordsUpdated = this.messageService.updateMessageText(Integer.valueOf(messageId), messageText);
+        return ResponseEntity.status(200)
+                             .body(recordsUpdated);
+    }
+
+    /**
+     * Query the newest messages of several accounts in one request, to build a feed.
+     * Return the newest limit messages of each account, newest first, keyed by account id, and with merged=true
+     * also the newest limit messages of all of them together, with status 200.
+     * If there are more than MessageService.MAX_PAGE_SIZE ids or the limit is out of range, return 400.
+     * @param ids the account ids, a comma separated list
+     * @param limit the number of messages per account, 20 if omitted.
+     * @param merged whether to also return the merged list.
+     * @return ResponseEntity<AccountTimelines>
+     */
+    @GetMapping(value="/accounts/messages")
+    public ResponseEntity<AccountTimelines> queryNewestMessagesByAccountIdsHandler(@RequestParam List<Integer> ids,
+            @RequestParam(defaultValue="20") int limit, @RequestParam(defaultValue="false") boolean merged)
+            throws InvalidPageRequestException{
+        return ResponseEntity.status(200).body(this.messageService.getNewestMessagesByAccountIds(ids, limit, merged));
     }
 
     /**
      * Query all messages by accoutn id.
      * Always return with all messages queried with given id, with status 200.
+     * If they did not change since the ETag or Last-Modified the client sent, return 304 without reading them.
      * @param accountId the ID of the account whose messages are to be retrieved
      * @return ResponseEntity<List<Message>> 
      */
     @GetMapping(value="/accounts/{accountId}/messages")
-    public ResponseEntity<List<Message>> queryAllMessagesByAccountIdHandler(@PathVariable String accountId){
+    public ResponseEntity<List<Message>> queryAllMessagesByAccountIdHandler(@PathVariable String accountId, WebRequest webRequest){
+        if (notModified(webRequest, this.messageVersions.forAccount(Integer.valueOf(accountId))))
+            return null;
         return ResponseEntity.status(200).body(this.messageService.getAllMessagesByAccountId(Integer.valueOf(accountId)));
     }
 
+    /**
+     * Query one page of the messages of an account, newest first.
+     * Selected when the request has a limit parameter.
+     * If the cursor and limit are valid, return the page with the cursor of the next page, with status 200.
+     * Otherwise, return 400.
+     * @param accountId the ID of the account whose messages are to be retrieved
+     * @param before the nextCursor of the previous page, omitted for the first page.
+     * @param limit the page size, between 1 and MessageService.MAX_PAGE_SIZE.
+     * @return ResponseEntity<MessagePage>
+     */
+    @GetMapping(value="/accounts/{accountId}/messages", params="limit")
+    public ResponseEntity<MessagePage> queryMessagePageByAccountIdHandler(@PathVariable String accountId,
+            @RequestParam(required=false) String before, @RequestParam int limit) throws InvalidPageRequestException{
+        return ResponseEntity.status(200)
+                             .body(this.messageService.getMessagePageByAccountId(Integer.valueOf(accountId), before, limit));
+    }
+
+    /**
+     * Answer a conditional GET from a version, before anything is read.
+     * Also sets the ETag and Last-Modified headers of a full response.
+     * @return true if the client's copy is current and the response is already a 304.
+     */
+    private static boolean notModified(WebRequest webRequest, MessageVersions.Version version){
+        return webRequest.checkNotModified(version.getEtag(), version.getLastModified());
+    }
+
 }
@@ -0,0 +1,73 @@
+package com.example.dto;
+
+import java.util.List;
+import java.util.Map;
+
+import com.example.entity.Message;
+
+/**
+ * The newest messages of several accounts, returned by a multi-account timeline query.
+ */
+public class AccountTimelines {
+    /**
+     * The newest messages of each account asked for, newest first, keyed by account id in request order.
+     * An account without messages has an empty list.
+     */
+    private Map<Integer, List<Message>> timelines;
+    /**
+     * The messages of all the accounts merged newest first, or null if no merge was asked for.
+     */
+    private List<Message> merged;
+
+    /**
+     * A default, no-args constructor, as well as correctly formatted getters and setters, are needed for
+     * Jackson Objectmapper to work.
+     */
+    public AccountTimelines(){
+    }
+
+    /**
+     * @param timelines
+     * @param merged
+     */
+    public AccountTimelines(Map<Integer, List<Message>> timelines, List<Message> merged){
+        this.timelines = timelines;
+        this.merged = merged;
+    }
+
+    /**
+     * @return timelines
+     */
+    public Map<Integer, List<Message>> getTimelines() {
+        return timelines;
+    }
+
+    /**
+     * @param timelines
+     */
+    public void setTimelines(Map<Integer, List<Message>> timelines) {
+        this.timelines = timelines;
+    }
+
+    /**
+     * @return merged
+     */
+    public List<Message> getMerged() {
+        return merged;
+    }
+
+    /**
+     * @param merged
+     */
+    public void setMerged(List<Message> merged) {
+        this.merged = merged;
+    }
+
+    @Override
+    public String toString() {
+        return "AccountTimelines{" +
+                "timelines=" + timelines +
+                ", merged=" + merged +
+                '}';
+    }
+}
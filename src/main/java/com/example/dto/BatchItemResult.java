@@ -0,0 +1,93 @@
+package com.example.dto;
+
+import com.example.entity.Message;
+
+/**
+ * The outcome of one message of a batch request.
+ *
+ * status is the status code the item would have had as a single request: 200 with the stored message,
+ * or 400 with the reason in error.
+ */
+public class BatchItemResult {
+    /**
+     * Position of the item in the request.
+     */
+    private int index;
+    private int status;
+    private Message message;
+    private String error;
+
+    /**
+     * A default, no-args constructor, as well as correctly formatted getters and setters, are needed for
+     * Jackson Objectmapper to work.
+     */
+    public BatchItemResult(){
+    }
+
+    public BatchItemResult(int index, int status, Message message, String error){
+        this.index = index;
+        this.status = status;
+        this.message = message;
+        this.error = error;
+    }
+
+    /**
+     * @param index position of the item in the request.
+     * @param message the stored message, with its message id.
+     * @return a successful result.
+     */
+    public static BatchItemResult created(int index, Message message){
+        return new BatchItemResult(index, 200, message, null);
+    }
+
+    /**
+     * @param index position of the item in the request.
+     * @param error why the item was rejected.
+     * @return a rejected result.
+     */
+    public static BatchItemResult rejected(int index, String error){
+        return new BatchItemResult(index, 400, null, error);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public Message getMessage() {
+        return message;
+    }
+
+    public void setMessage(Message message) {
+        this.message = message;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchItemResult{" +
+                "index=" + index +
+                ", status=" + status +
+                ", message=" + message +
+                ", error='" + error + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.dto;
+
+import java.util.List;
+
+import com.example.entity.Message;
+
+/**
+ * One page of messages returned by a cursor-paginated query.
+ *
+ * The nextCursor is opaque to clients: pass it back unchanged to fetch the following page.
+ * It is null once the last page has been reached.
+ */
+public class MessagePage {
+    /**
+     * The messages on this page, in the order defined by the query.
+     */
+    private List<Message> messages;
+    /**
+     * The cursor of the following page, or null if there is none.
+     */
+    private String nextCursor;
+
+    /**
+     * A default, no-args constructor, as well as correctly formatted getters and setters, are needed for
+     * Jackson Objectmapper to work.
+     */
+    public MessagePage(){
+    }
+
+    /**
+     * @param messages
+     * @param nextCursor
+     */
+    public MessagePage(List<Message> messages, String nextCursor){
+        this.messages = messages;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * @return messages
+     */
+    public List<Message> getMessages() {
+        return messages;
+    }
+
+    /**
+     * @param messages
+     */
+    public void setMessages(List<Message> messages) {
+        this.messages = messages;
+    }
+
+    /**
+     * @return nextCursor
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * @param nextCursor
+     */
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    @Override
+    public String toString() {
+        return "MessagePage{" +
+                "messages=" + messages +
+                ", nextCursor='" + nextCursor + '\'' +
+                '}';
+    }
+}
@@ -2,6 +2,10 @@ package com.example.entity;
 
 import javax.persistence.*;
 
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
 /**
  * This is a class that models an Account.
  *
@@ -12,10 +16,16 @@ import javax.persistence.*;
 public class Account {
     /**
      * An id for this Account. You should use this as the Entity's ID.
+     * Generated from the account_seq sequence, ids 9000 to 9999 are reserved for the rows seeded in data.sql.
      */
     @Column(name="accountId")
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "account_seq")
+    @GenericGenerator(name = "account_seq", strategy = "com.example.entity.PooledSequenceGenerator", parameters = {
+            @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "account_seq"),
+            @Parameter(name = PooledSequenceGenerator.RESERVED_ID_MIN_PARAM, value = "9000"),
+            @Parameter(name = PooledSequenceGenerator.RESERVED_ID_MAX_PARAM, value = "9999")
+    })
     private Integer accountId;
     /**
      * A username for this Account (must be unique and not blank)
@@ -2,6 +2,10 @@ package com.example.entity;
 
 import javax.persistence.*;
 
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
 /**
  * This is a class that models a Message.
  *
@@ -11,10 +15,17 @@ import javax.persistence.*;
 @Table(name="message")
 public class Message {
      /**
-     * An id for this message which will be automatically generated by the database.
+     * An id for this message which will be automatically generated from the message_seq sequence.
+     * Ids 9000 to 9999 are reserved for the rows seeded in data.sql.
      */
      @Column (name="messageId")
-     @Id @GeneratedValue
+     @Id
+     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "message_seq")
+     @GenericGenerator(name = "message_seq", strategy = "com.example.entity.PooledSequenceGenerator", parameters = {
+             @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "message_seq"),
+             @Parameter(name = PooledSequenceGenerator.RESERVED_ID_MIN_PARAM, value = "9000"),
+             @Parameter(name = PooledSequenceGenerator.RESERVED_ID_MAX_PARAM, value = "9999")
+     })
     private Integer messageId;
     /**
      * The id for the user who has posted this message. We will assume that this is provided by the front-end of this
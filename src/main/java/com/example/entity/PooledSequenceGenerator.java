@@ -0,0 +1,62 @@
+package com.example.entity;
+
+import java.io.Serializable;
+import java.util.Properties;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+/**
+ * Sequence based id generator using the pooled optimizer.
+ *
+ * One call to the database sequence reserves allocation_size ids, so inserts need no round trip per row to
+ * read back their key, and Hibernate can send them as a JDBC batch. The allocation size is read from the
+ * socialmedia.id.allocation_size setting (spring.jpa.properties.socialmedia.id.allocation_size), and must be
+ * equal to the increment of the sequences declared in data.sql.
+ *
+ * Ids between reserved_id_min and reserved_id_max are never handed out, so generated ids do not collide
+ * with the rows seeded by hand in data.sql.
+ */
+public class PooledSequenceGenerator extends SequenceStyleGenerator {
+    /**
+     * Hibernate setting holding the allocation size shared by every entity using this generator.
+     */
+    public static final String ALLOCATION_SIZE_SETTING = "socialmedia.id.allocation_size";
+    public static final int DEFAULT_ALLOCATION_SIZE = 50;
+    public static final String RESERVED_ID_MIN_PARAM = "reserved_id_min";
+    public static final String RESERVED_ID_MAX_PARAM = "reserved_id_max";
+
+    private long reservedIdMin;
+    private long reservedIdMax;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        Object allocationSize = serviceRegistry.getService(ConfigurationService.class)
+                .getSettings()
+                .get(ALLOCATION_SIZE_SETTING);
+        params.setProperty(INCREMENT_PARAM, allocationSize == null ?
+                String.valueOf(DEFAULT_ALLOCATION_SIZE) : allocationSize.toString());
+        params.setProperty(OPT_PARAM, "pooled");
+        params.setProperty(INITIAL_PARAM, "1");
+        this.reservedIdMin = Long.parseLong(params.getProperty(RESERVED_ID_MIN_PARAM, "0"));
+        this.reservedIdMax = Long.parseLong(params.getProperty(RESERVED_ID_MAX_PARAM, "-1"));
+        super.configure(type, params, serviceRegistry);
+    }
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) {
+        Serializable id = super.generate(session, object);
+        while (isReserved(id))
+            id = super.generate(session, object);
+        return id;
+    }
+
+    private boolean isReserved(Serializable id) {
+        long value = ((Number) id).longValue();
+        return value >= reservedIdMin && value <= reservedIdMax;
+    }
+}
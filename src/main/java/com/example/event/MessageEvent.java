@@ -0,0 +1,67 @@
+package com.example.event;
+
+import com.example.entity.Message;
+
+/**
+ * A change to the message table, published by MessageService after the change is committed.
+ *
+ * Created and updated events carry a copy of the message as it is now. Deleted events carry only the message
+ * id and the author, read from the deleted row.
+ */
+public class MessageEvent {
+
+    public enum Type { CREATED, UPDATED, DELETED }
+
+    private final Type type;
+    private final int messageId;
+    private final int postedBy;
+    private final Message message;
+
+    private MessageEvent(Type type, int messageId, int postedBy, Message message){
+        this.type = type;
+        this.messageId = messageId;
+        this.postedBy = postedBy;
+        this.message = message;
+    }
+
+    public static MessageEvent created(Message message){
+        return new MessageEvent(Type.CREATED, message.getMessageId(), message.getPostedBy(), copy(message));
+    }
+
+    public static MessageEvent updated(Message message){
+        return new MessageEvent(Type.UPDATED, message.getMessageId(), message.getPostedBy(), copy(message));
+    }
+
+    public static MessageEvent deleted(int messageId, int postedBy){
+        return new MessageEvent(Type.DELETED, messageId, postedBy, null);
+    }
+
+    private static Message copy(Message message){
+        return new Message(message.getMessageId(), message.getPostedBy(), message.getMessageText(), message.getTimePostedEpoch());
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public int getMessageId() {
+        return messageId;
+    }
+
+    public int getPostedBy() {
+        return postedBy;
+    }
+
+    public Message getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return "MessageEvent{" +
+                "type=" + type +
+                ", messageId=" + messageId +
+                ", postedBy=" + postedBy +
+                '}';
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.exception;
+
+public class FeedSubscriptionRejectedException extends SocialMediaException {
+    public FeedSubscriptionRejectedException(String msg){
+        super(msg);
+    }
+}
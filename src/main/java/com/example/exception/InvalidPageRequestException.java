@@ -0,0 +1,7 @@
+package com.example.exception;
+
+public class InvalidPageRequestException extends SocialMediaException {
+    public InvalidPageRequestException(String msg){
+        super(msg);
+    }
+}
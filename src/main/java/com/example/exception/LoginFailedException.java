@@ -1,6 +1,6 @@
 package com.example.exception;
 
-public class LoginFailedException extends Exception {
+public class LoginFailedException extends SocialMediaException {
     public LoginFailedException(String message){
         super(message);
     }
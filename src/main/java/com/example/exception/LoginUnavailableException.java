@@ -0,0 +1,7 @@
+package com.example.exception;
+
+public class LoginUnavailableException extends SocialMediaException {
+    public LoginUnavailableException(String message){
+        super(message);
+    }
+}
@@ -1,6 +1,6 @@
 package com.example.exception;
 
-public class MessageCreationFailedException extends Exception {
+public class MessageCreationFailedException extends SocialMediaException {
     public MessageCreationFailedException(String msg){
         super(msg);
     }
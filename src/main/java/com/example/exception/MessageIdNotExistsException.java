@@ -1,6 +1,6 @@
 package com.example.exception;
 
-public class MessageIdNotExistsException extends Exception{
+public class MessageIdNotExistsException extends SocialMediaException{
     public MessageIdNotExistsException(String msg){
         super(msg);
     }
@@ -0,0 +1,7 @@
+package com.example.exception;
+
+public class MessageIngestRejectedException extends SocialMediaException {
+    public MessageIngestRejectedException(String msg){
+        super(msg);
+    }
+}
@@ -1,6 +1,6 @@
 package com.example.exception;
 
-public class MessageTextException extends Exception {
+public class MessageTextException extends SocialMediaException {
     public MessageTextException(String msg){
         super(msg);
     }
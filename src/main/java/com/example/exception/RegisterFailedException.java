@@ -1,6 +1,6 @@
 package com.example.exception;
 
-public class RegisterFailedException extends Exception {
+public class RegisterFailedException extends SocialMediaException {
     
     public RegisterFailedException(String message) {
         super(message);  // 直接使用传递的错误信息
@@ -0,0 +1,15 @@
+package com.example.exception;
+
+/**
+ * Base of the exceptions that reject a request: bad input, a missing record, or an overloaded component.
+ *
+ * They are expected outcomes mapped to a status code by ApiExceptionHandler, not bugs, so they carry no
+ * stack trace and cannot hold suppressed exceptions. Capturing the stack was the main cost of a rejected
+ * request, and without it an instance holds nothing but its message, so the services throw shared,
+ * preallocated instances for their fixed messages.
+ */
+public abstract class SocialMediaException extends Exception {
+    protected SocialMediaException(String msg){
+        super(msg, null, false, false);
+    }
+}
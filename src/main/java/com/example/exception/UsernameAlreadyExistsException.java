@@ -1,6 +1,6 @@
 package com.example.exception;
 
-public class UsernameAlreadyExistsException extends Exception {
+public class UsernameAlreadyExistsException extends SocialMediaException {
     public UsernameAlreadyExistsException(String message){
         super(message);
     }
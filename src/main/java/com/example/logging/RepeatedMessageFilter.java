@@ -0,0 +1,112 @@
+package com.example.logging;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.Marker;
+import org.apache.logging.log4j.core.Filter;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.Logger;
+import org.apache.logging.log4j.core.config.Node;
+import org.apache.logging.log4j.core.config.plugins.Plugin;
+import org.apache.logging.log4j.core.config.plugins.PluginAttribute;
+import org.apache.logging.log4j.core.config.plugins.PluginFactory;
+import org.apache.logging.log4j.core.filter.AbstractFilter;
+import org.apache.logging.log4j.message.Message;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Log4j filter that rate limits and samples repeated messages, so that a storm of the same failure (a bot
+ * hammering /login) cannot flood the log or the async loggers' ring buffer.
+ *
+ * Messages are grouped by their format string, the "Login failed: {}" of a parameterized call, so every
+ * failure branch is its own category. In every second the first perSecond messages of a category pass, and
+ * after that only one in sampleEvery (none if 0). Messages more severe than level always pass. The per-category
+ * counters are updated with compare-and-set, never a lock.
+ *
+ * Configured as a context-wide filter it runs on the calling thread before the event is created, so a denied
+ * message costs no allocation. How many failures there really were is counted by the socialmedia.service
+ * metrics, not by the log.
+ */
+@Plugin(name = "RepeatedMessageFilter", category = Node.CATEGORY, elementType = Filter.ELEMENT_TYPE, printObject = true)
+public final class RepeatedMessageFilter extends AbstractFilter {
+
+    /**
+     * Categories beyond this are not tracked and always pass, in case formats are built at runtime.
+     */
+    private static final int MAX_CATEGORIES = 1024;
+
+    private final Level level;
+    private final int perSecond;
+    private final int sampleEvery;
+    private final ConcurrentHashMap<String, AtomicLong> windows = new ConcurrentHashMap<>();
+
+    private RepeatedMessageFilter(Level level, int perSecond, int sampleEvery, Result onMatch, Result onMismatch){
+        super(onMatch, onMismatch);
+        this.level = level;
+        this.perSecond = perSecond;
+        this.sampleEvery = sampleEvery;
+    }
+
+    @PluginFactory
+    public static RepeatedMessageFilter createFilter(
+            @PluginAttribute(value = "level", defaultString = "WARN") Level level,
+            @PluginAttribute(value = "perSecond", defaultInt = 20) int perSecond,
+            @PluginAttribute(value = "sampleEvery", defaultInt = 1000) int sampleEvery,
+            @PluginAttribute(value = "onMatch", defaultString = "NEUTRAL") Result onMatch,
+            @PluginAttribute(value = "onMismatch", defaultString = "DENY") Result onMismatch){
+        return new RepeatedMessageFilter(level, Math.max(perSecond, 0), Math.max(sampleEvery, 0), onMatch, onMismatch);
+    }
+
+    @Override
+    public Result filter(Logger logger, Level level, Marker marker, String msg, Object... params){
+        return filter(level, msg);
+    }
+
+    @Override
+    public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0){
+        return filter(level, msg);
+    }
+
+    @Override
+    public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0, Object p1){
+        return filter(level, msg);
+    }
+
+    @Override
+    public Result filter(Logger logger, Level level, Marker marker, Message msg, Throwable t){
+        return filter(level, msg == null ? null : msg.getFormat());
+    }
+
+    @Override
+    public Result filter(LogEvent event){
+        return filter(event.getLevel(), event.getMessage() == null ? null : event.getMessage().getFormat());
+    }
+
+    private Result filter(Level eventLevel, String format){
+        if (format == null || eventLevel.intLevel() < this.level.intLevel())
+            return onMatch;
+        AtomicLong window = windows.get(format);
+        if (window == null) {
+            if (windows.size() >= MAX_CATEGORIES)
+                return onMatch;
+            window = windows.computeIfAbsent(format, f -> new AtomicLong());
+        }
+        long count = count(window, System.currentTimeMillis() / 1000);
+        if (count <= perSecond)
+            return onMatch;
+        return sampleEvery > 0 && (count - perSecond) % sampleEvery == 0 ? onMatch : onMismatch;
+    }
+
+    /**
+     * Count one message in the current second: the high 32 bits hold the second, the low 32 the count in it.
+     */
+    private static long count(AtomicLong window, long second){
+        while (true) {
+            long current = window.get();
+            long next = current >>> 32 == second ? current + 1 : second << 32 | 1;
+            if (window.compareAndSet(current, next))
+                return next & 0xFFFFFFFFL;
+        }
+    }
+}
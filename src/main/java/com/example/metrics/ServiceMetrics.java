@@ -0,0 +1,120 @@
+package com.example.metrics;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Latency timer and exception counter around every public method of MessageService and AccountService.
+ *
+ * socialmedia.service is timed per class, method and exception ("none" on success), and
+ * socialmedia.service.exceptions counts the exceptions per class, method and exception. A method returning a
+ * CompletionStage is timed until the stage completes, and counted by the exception it completes with.
+ *
+ * The meters are looked up once per method, and once per method and exception class, and kept, so a call
+ * costs two nanoTime reads and one histogram update, plus one counter increment when it fails. A flood of
+ * rejected calls therefore never goes through the registry. Can be turned off with socialmedia.metrics.service-timers=false.
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(name = "socialmedia.metrics.service-timers", havingValue = "true", matchIfMissing = true)
+public class ServiceMetrics {
+
+    public static final String TIMER = "socialmedia.service";
+    public static final String EXCEPTIONS = "socialmedia.service.exceptions";
+
+    private final MeterRegistry registry;
+    private final ConcurrentHashMap<Method, Timer> successTimers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Method, ConcurrentHashMap<Class<?>, FailureMeters>> failureMeters = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ServiceMetrics(MeterRegistry registry){
+        this.registry = registry;
+    }
+
+    @Around("execution(public * com.example.service.MessageService.*(..)) || "
+            + "execution(public * com.example.service.AccountService.*(..))")
+    public Object time(ProceedingJoinPoint call) throws Throwable {
+        long started = System.nanoTime();
+        Object result;
+        try {
+            result = call.proceed();
+        } catch (Throwable e) {
+            failed(call, e, System.nanoTime() - started);
+            throw e;
+        }
+        if (result instanceof CompletionStage) {
+            ((CompletionStage<?>) result).whenComplete((value, e) -> {
+                if (e == null)
+                    succeeded(call, System.nanoTime() - started);
+                else
+                    failed(call, unwrap(e), System.nanoTime() - started);
+            });
+        } else {
+            succeeded(call, System.nanoTime() - started);
+        }
+        return result;
+    }
+
+    private void succeeded(ProceedingJoinPoint call, long nanos){
+        Method method = ((MethodSignature) call.getSignature()).getMethod();
+        Timer timer = successTimers.get(method);
+        if (timer == null)
+            timer = successTimers.computeIfAbsent(method, m -> timer(m, "none"));
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void failed(ProceedingJoinPoint call, Throwable e, long nanos){
+        Method method = ((MethodSignature) call.getSignature()).getMethod();
+        ConcurrentHashMap<Class<?>, FailureMeters> byException = failureMeters.get(method);
+        if (byException == null)
+            byException = failureMeters.computeIfAbsent(method, m -> new ConcurrentHashMap<>());
+        FailureMeters meters = byException.get(e.getClass());
+        if (meters == null)
+            meters = byException.computeIfAbsent(e.getClass(), exception -> new FailureMeters(method, exception.getSimpleName()));
+        meters.timer.record(nanos, TimeUnit.NANOSECONDS);
+        meters.counter.increment();
+    }
+
+    private Timer timer(Method method, String exception){
+        return Timer.builder(TIMER)
+            .tag("class", method.getDeclaringClass().getSimpleName())
+            .tag("method", method.getName())
+            .tag("exception", exception)
+            .register(registry);
+    }
+
+    private final class FailureMeters {
+        final Timer timer;
+        final Counter counter;
+
+        FailureMeters(Method method, String exception){
+            this.timer = timer(method, exception);
+            this.counter = Counter.builder(EXCEPTIONS)
+                .tag("class", method.getDeclaringClass().getSimpleName())
+                .tag("method", method.getName())
+                .tag("exception", exception)
+                .register(registry);
+        }
+    }
+
+    private static Throwable unwrap(Throwable e){
+        while ((e instanceof CompletionException || e instanceof ExecutionException) && e.getCause() != null)
+            e = e.getCause();
+        return e;
+    }
+}
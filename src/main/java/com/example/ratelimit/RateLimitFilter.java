@@ -0,0 +1,259 @@
+package com.example.ratelimit;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.SequenceInputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket rate limits on the write endpoints, answered with 429 and a Retry-After header before the
+ * request reaches the controller.
+ *
+ * Every POST /register, POST /login, POST /messages, POST /messages/batch and PATCH /messages/{messageId}
+ * takes a token from the bucket of the client IP. POST /login also takes one from the bucket of the username,
+ * and POST /messages from that of the postedBy account, so one account cannot be hammered or spam from many
+ * addresses. Those two fields are read from the JSON body the way Jackson binds them, and the body is then
+ * replayed to the controller.
+ *
+ * The client IP is the remote address; behind a proxy, set server.forward-headers-strategy so that it is the
+ * client's rather than the proxy's.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitFilter.class);
+    private static final JsonFactory JSON = new JsonFactory();
+
+    /**
+     * Bodies larger than this are not searched for an account, only the IP limit applies to them.
+     */
+    private static final int MAX_PARSED_BODY = 64 * 1024;
+
+    private final RateLimitStore store;
+    private final Limit ipLimit;
+    private final Limit accountLimit;
+    private final Counter ipRejected;
+    private final Counter accountRejected;
+
+    public RateLimitFilter(RateLimitStore store, Limit ipLimit, Limit accountLimit, MeterRegistry meterRegistry){
+        this.store = store;
+        this.ipLimit = ipLimit;
+        this.accountLimit = accountLimit;
+        this.ipRejected = meterRegistry.counter("socialmedia.rate-limit.rejected", "limit", "ip");
+        this.accountRejected = meterRegistry.counter("socialmedia.rate-limit.rejected", "limit", "account");
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request){
+        return accountField(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String ip = "ip:" + request.getRemoteAddr();
+        long wait = ipLimit.acquire(store, ip);
+        if (wait > 0) {
+            ipRejected.increment();
+            log.warn("Rate limited: {}", ip);
+            reject(response, wait);
+            return;
+        }
+        String field = accountField(request);
+        if (!field.isEmpty() && request.getContentLength() <= MAX_PARSED_BODY) {
+            CachedBodyRequest cached = new CachedBodyRequest(request);
+            String account = cached.topLevelField(field);
+            if (account != null) {
+                String key = field + ":" + account;
+                wait = accountLimit.acquire(store, key);
+                if (wait > 0) {
+                    accountRejected.increment();
+                    log.warn("Rate limited: {}", key);
+                    reject(response, wait);
+                    return;
+                }
+            }
+            request = cached;
+        }
+        chain.doFilter(request, response);
+    }
+
+    /**
+     * @return null if the request is not rate limited, otherwise the body field that names its account, or ""
+     * if only the IP limit applies.
+     */
+    private static String accountField(HttpServletRequest request){
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        switch (request.getMethod()) {
+            case "POST":
+                switch (path) {
+                    case "/login": return "username";
+                    case "/messages": return "postedBy";
+                    case "/register":
+                    case "/messages/batch": return "";
+                    default: return null;
+                }
+            case "PATCH":
+                return path.startsWith("/messages/") ? "" : null;
+            default:
+                return null;
+        }
+    }
+
+    private static void reject(HttpServletResponse response, long waitNanos){
+        response.setStatus(429);
+        response.setHeader("Retry-After", Long.toString(Math.max(1, (waitNanos + 999_999_999) / 1_000_000_000)));
+    }
+
+    /**
+     * A rate and the burst allowed above it.
+     */
+    public static class Limit {
+        private final long intervalNanos;
+        private final int burst;
+
+        public Limit(double perSecond, int burst){
+            if (perSecond <= 0 || burst < 1)
+                throw new IllegalArgumentException("socialmedia.rate-limit rates and bursts must be positive.");
+            this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / perSecond));
+            this.burst = burst;
+        }
+
+        long acquire(RateLimitStore store, String key){
+            return store.tryAcquire(key, intervalNanos, burst);
+        }
+    }
+
+    /**
+     * A request whose body has been read into memory, up to MAX_PARSED_BODY bytes, so it can be inspected here
+     * and parsed again by the controller. A longer body, which may have no Content-Length when chunked, is not
+     * inspected: the bytes read are replayed, followed by the rest of the original stream.
+     */
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] head;
+        private final boolean complete;
+
+        CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.head = request.getInputStream().readNBytes(MAX_PARSED_BODY + 1);
+            this.complete = head.length <= MAX_PARSED_BODY;
+        }
+
+        /**
+         * Read a top-level field of a JSON object body as Jackson binds it: the last occurrence wins, and a
+         * postedBy is the integer it binds to, so 9998, 9998.0 and "9998" share a bucket.
+         * @return the value as text, or null if the body is too long, not an object, or has no such value.
+         */
+        String topLevelField(String name){
+            if (!complete)
+                return null;
+            try (JsonParser parser = JSON.createParser(head)) {
+                if (parser.nextToken() != JsonToken.START_OBJECT)
+                    return null;
+                String value = null;
+                JsonToken token;
+                while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+                    boolean match = name.equals(parser.getCurrentName());
+                    token = parser.nextToken();
+                    if (match)
+                        value = token.isScalarValue() && token != JsonToken.VALUE_NULL ? normalize(name, parser, token) : null;
+                    else
+                        parser.skipChildren();
+                }
+                return value;
+            } catch (IOException | NumberFormatException e) {
+                return null;
+            }
+        }
+
+        private static String normalize(String name, JsonParser parser, JsonToken token) throws IOException {
+            if (!"postedBy".equals(name))
+                return parser.getText();
+            if (token == JsonToken.VALUE_STRING)
+                return Integer.toString(Integer.parseInt(parser.getText().trim()));
+            return Integer.toString(parser.getValueAsInt());
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            InputStream in = complete ? new ByteArrayInputStream(head)
+                    : new SequenceInputStream(new ByteArrayInputStream(head), super.getInputStream());
+            return new ServletInputStream() {
+                private boolean eof;
+
+                @Override
+                public int read() throws IOException {
+                    int b = in.read();
+                    eof |= b < 0;
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    int n = in.read(b, off, len);
+                    eof |= n < 0;
+                    return n;
+                }
+
+                @Override
+                public boolean isFinished(){
+                    try {
+                        return eof || complete && in.available() == 0;
+                    } catch (IOException e) {
+                        return true;
+                    }
+                }
+
+                @Override
+                public boolean isReady(){
+                    return true;
+                }
+
+                /**
+                 * The body is read with blocking calls and isReady is always true, so the listener is told at once
+                 * that data is available, and that all of it was read once it has read to the end.
+                 */
+                @Override
+                public void setReadListener(ReadListener listener){
+                    try {
+                        listener.onDataAvailable();
+                        if (isFinished())
+                            listener.onAllDataRead();
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding)));
+        }
+    }
+}
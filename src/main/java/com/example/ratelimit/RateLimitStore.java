@@ -0,0 +1,20 @@
+package com.example.ratelimit;
+
+/**
+ * The token buckets behind RateLimitFilter.
+ *
+ * StripedRateLimitStore keeps them in memory, so every node enforces its own limits. For limits that hold
+ * across several nodes, declare a bean of this type backed by shared state (for example a Redis script that
+ * runs the same update as StripedRateLimitStore.tryAcquire on one key); it replaces the in-memory store.
+ */
+public interface RateLimitStore {
+
+    /**
+     * Take one token from the bucket of a key.
+     * @param key the bucket, such as "ip:10.0.0.1".
+     * @param intervalNanos the time in which the bucket refills by one token.
+     * @param burst the capacity of the bucket.
+     * @return 0 if a token was taken, otherwise how many nanoseconds until the next one is available.
+     */
+    long tryAcquire(String key, long intervalNanos, int burst);
+}
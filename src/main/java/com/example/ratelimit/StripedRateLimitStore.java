@@ -0,0 +1,45 @@
+package com.example.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory token buckets, one per stripe of keys.
+ *
+ * Each stripe is a single long, the time at which its bucket will be full again (the generic cell rate
+ * algorithm, equivalent to a token bucket), updated with compare-and-set, never a lock. Keys are hashed onto
+ * a fixed number of stripes, so memory does not grow with the number of clients and nothing has to be
+ * evicted. Keys that share a stripe share a bucket, so a collision can make a limit stricter, never looser.
+ */
+public class StripedRateLimitStore implements RateLimitStore {
+
+    private final long origin = System.nanoTime();
+    private final AtomicLongArray fullAt;
+    private final int mask;
+
+    public StripedRateLimitStore(int stripes){
+        if (stripes < 1 || Integer.bitCount(stripes) != 1)
+            throw new IllegalArgumentException("socialmedia.rate-limit.stripes must be a power of two.");
+        this.mask = stripes - 1;
+        this.fullAt = new AtomicLongArray(stripes);
+    }
+
+    @Override
+    public long tryAcquire(String key, long intervalNanos, int burst){
+        int stripe = stripe(key.hashCode());
+        long now = System.nanoTime() - origin;
+        long capacity = intervalNanos * burst;
+        while (true) {
+            long current = fullAt.get(stripe);
+            long next = Math.max(current, now) + intervalNanos;
+            long wait = next - now - capacity;
+            if (wait > 0)
+                return wait;
+            if (fullAt.compareAndSet(stripe, current, next))
+                return 0;
+        }
+    }
+
+    private int stripe(int hash){
+        return (hash * 0x9E3779B9 >>> 16 ^ hash * 0x9E3779B9) & mask;
+    }
+}
@@ -1,12 +1,32 @@
 package com.example.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.example.entity.Account;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import javax.persistence.QueryHint;
 
 public interface AccountRepository extends JpaRepository<Account, Integer> {
     Optional<Account> findByUsername(String username);
+
+    /**
+     * @return the ids among the given ones that belong to an existing account, read with one IN query.
+     */
+    @Query("select a.accountId from Account a where a.accountId in :ids")
+    List<Integer> findExistingIds(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * Stream every account id through a forward-only cursor, without loading the accounts.
+     * Must be consumed inside a transaction, and the stream must be closed.
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "1024"))
+    @Query("select a.accountId from Account a")
+    Stream<Integer> streamAllAccountIds();
 }
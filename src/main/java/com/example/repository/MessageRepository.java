@@ -1,10 +1,67 @@
 package com.example.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import com.example.entity.Message;
+import java.util.Collection;
 import java.util.List;
 
 public interface MessageRepository extends JpaRepository<Message, Integer> {
 
         List<Message> findByPostedBy(int postedBy);
+
+        /**
+         * Delete a message with a single DELETE statement, without loading it first, and return the author of
+         * the deleted row from H2's OLD TABLE delta of that statement.
+         * @return the postedBy of the deleted row, or nothing if there was no such message.
+         */
+        @Transactional
+        @Query(value = "select postedBy from old table (delete from message where messageId = :messageId)", nativeQuery = true)
+        List<Integer> deleteByMessageIdReturningPostedBy(@Param("messageId") int messageId);
+
+        /**
+         * Replace the text of a message with a single UPDATE statement that only writes messageText, and return
+         * the updated row from H2's FINAL TABLE delta of that statement.
+         * @return the updated message, or nothing if there was no such message.
+         */
+        @Transactional
+        @Query(value = "select * from final table (update message set messageText = :messageText where messageId = :messageId)", nativeQuery = true)
+        List<Message> updateMessageTextReturning(@Param("messageId") int messageId, @Param("messageText") String messageText);
+
+        /**
+         * First page of an account timeline, newest first.
+         * Served by the (postedBy, timePostedEpoch desc, messageId desc) index.
+         */
+        List<Message> findByPostedByOrderByTimePostedEpochDescMessageIdDesc(int postedBy, Pageable pageable);
+
+        /**
+         * Seek query for the following pages of an account timeline: the messages posted strictly before the
+         * (timePostedEpoch, messageId) position of the last message of the previous page, newest first.
+         */
+        @Query("select m from Message m where m.postedBy = :postedBy"
+                + " and (m.timePostedEpoch < :timePostedEpoch"
+                + " or (m.timePostedEpoch = :timePostedEpoch and m.messageId < :messageId))"
+                + " order by m.timePostedEpoch desc, m.messageId desc")
+        List<Message> findByPostedByBefore(@Param("postedBy") int postedBy, @Param("timePostedEpoch") long timePostedEpoch,
+                                           @Param("messageId") int messageId, Pageable pageable);
+
+        /**
+         * The newest messages of each of several accounts, in one query: the messages of every account are
+         * ranked newest first, (timePostedEpoch, messageId) descending, and the first limit of each are kept.
+         * The rows of each account are read from the (postedBy, timePostedEpoch desc, messageId desc) index.
+         * The result is in no particular order.
+         */
+        @Query(value = "select messageId, postedBy, messageText, timePostedEpoch from ("
+                + "select m.*, row_number() over (partition by m.postedBy order by m.timePostedEpoch desc, m.messageId desc) as newest"
+                + " from message m where m.postedBy in (:postedBy)) ranked where newest <= :limit", nativeQuery = true)
+        List<Message> findNewestByPostedByIn(@Param("postedBy") Collection<Integer> postedBy, @Param("limit") int limit);
+
+        /**
+         * Seek query for keyset pagination: the messages with an id greater than the given one, in id order.
+         * Only pageable.getPageSize() is used, the offset is always 0.
+         */
+        List<Message> findByMessageIdGreaterThanOrderByMessageIdAsc(int messageId, Pageable pageable);
 }
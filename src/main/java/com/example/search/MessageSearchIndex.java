@@ -0,0 +1,285 @@
+package com.example.search;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import com.example.entity.Message;
+import com.example.event.MessageEvent;
+import com.example.repository.MessageRepository;
+
+/**
+ * In-memory inverted index over message text, for GET /messages/search.
+ *
+ * Text is split into lowercase runs of letters and digits. Every term has a PostingList of the ids of the
+ * messages containing it, and every message id maps to the ordinals of its terms, so an update or delete
+ * removes exactly the postings the old text added. Message ids are sparse, pooled sequences skip blocks, so
+ * that forward map is a HashMap sized by the number of indexed messages, not by the largest id.
+ *
+ * A query matches the messages containing all of its terms. The posting lists are intersected starting from
+ * the shortest one, and the matches are ranked with BM25, ties broken newest first.
+ *
+ * The index is kept up to date from the MessageEvents published by MessageService, and rebuilt from the
+ * message table in the background at startup, in seek pages of REBUILD_BATCH messages by id, each its own
+ * short query, so the rebuild holds no connection between pages. Until the rebuild is done, queries only see the messages it has
+ * reached and those changed since startup. A change seen during the rebuild wins over the row the rebuild reads.
+ */
+@Component
+public class MessageSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(MessageSearchIndex.class);
+
+    private static final int MAX_TERM_LENGTH = 64;
+    private static final int REBUILD_BATCH = 1000;
+    private static final int[] NO_TERMS = new int[0];
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final MessageRepository messageRepository;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final List<PostingList> postings = new ArrayList<>();
+    private final Map<Integer, int[]> termsById = new HashMap<>();
+    private int documentCount;
+    private long totalLength;
+    private Set<Integer> changedDuringRebuild;
+    private volatile boolean ready;
+
+    @Autowired
+    public MessageSearchIndex(MessageRepository messageRepository){
+        this.messageRepository = messageRepository;
+    }
+
+    /**
+     * Start reading the message table into the index, on its own thread.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startRebuild(){
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Thread indexer = new Thread(this::rebuild, "message-search-indexer");
+        indexer.setDaemon(true);
+        indexer.start();
+    }
+
+    private void rebuild(){
+        long started = System.nanoTime();
+        try {
+            int after = 0;
+            List<Message> batch;
+            do {
+                batch = messageRepository.findByMessageIdGreaterThanOrderByMessageIdAsc(after, PageRequest.of(0, REBUILD_BATCH));
+                indexRebuildBatch(batch);
+                if (!batch.isEmpty())
+                    after = batch.get(batch.size() - 1).getMessageId();
+            } while (batch.size() == REBUILD_BATCH);
+            log.info("Search index rebuilt with {} messages in {} ms.", documentCount,
+                    (System.nanoTime() - started) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.warn("Search index rebuild failed: {}", e.getMessage());
+        } finally {
+            lock.writeLock().lock();
+            try {
+                changedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            ready = true;
+        }
+    }
+
+    private void indexRebuildBatch(List<Message> batch){
+        lock.writeLock().lock();
+        try {
+            for (Message message : batch) {
+                if (!changedDuringRebuild.contains(message.getMessageId()))
+                    put(message.getMessageId(), message.getMessageText());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return true once the startup rebuild is over.
+     */
+    public boolean isReady(){
+        return ready;
+    }
+
+    /**
+     * @return the number of indexed messages.
+     */
+    public int size(){
+        lock.readLock().lock();
+        try {
+            return documentCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Apply a committed change to the index.
+     */
+    @EventListener
+    public void onMessageEvent(MessageEvent event){
+        lock.writeLock().lock();
+        try {
+            if (changedDuringRebuild != null)
+                changedDuringRebuild.add(event.getMessageId());
+            if (event.getType() == MessageEvent.Type.DELETED)
+                remove(event.getMessageId());
+            else
+                put(event.getMessageId(), event.getMessage().getMessageText());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Find the messages containing every term of a query, best first.
+     * @param query the words to look for.
+     * @param offset the number of best matches to skip.
+     * @param count the number of matches to return after them.
+     * @return the message ids, at most count of them.
+     */
+    public int[] search(String query, int offset, int count){
+        List<String> terms = new ArrayList<>(new HashSet<>(tokenize(query)));
+        if (terms.isEmpty() || count <= 0)
+            return NO_TERMS;
+        lock.readLock().lock();
+        try {
+            PostingList[] lists = new PostingList[terms.size()];
+            for (int i = 0; i < lists.length; i++) {
+                Integer ordinal = ordinals.get(terms.get(i));
+                if (ordinal == null || postings.get(ordinal).size() == 0)
+                    return NO_TERMS;
+                lists[i] = postings.get(ordinal);
+            }
+            Arrays.sort(lists, (a, b) -> Integer.compare(a.size(), b.size()));
+            return rank(lists, offset + count, offset);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Intersect the lists, shortest first, keeping the best window matches in a min-heap.
+     */
+    private int[] rank(PostingList[] lists, int window, int offset){
+        double averageLength = documentCount == 0 ? 1 : (double) totalLength / documentCount;
+        double[] idf = new double[lists.length];
+        for (int i = 0; i < lists.length; i++)
+            idf[i] = Math.log(1 + (documentCount - lists[i].size() + 0.5) / (lists[i].size() + 0.5));
+
+        PriorityQueue<double[]> best = new PriorityQueue<>(Math.min(window, 1024) + 1,
+                (a, b) -> a[0] != b[0] ? Double.compare(a[0], b[0]) : Double.compare(a[1], b[1]));
+        int[] positions = new int[lists.length];
+        PostingList shortest = lists[0];
+        candidates:
+        for (int index = 0; index < shortest.size(); index++) {
+            int id = shortest.idAt(index);
+            positions[0] = index;
+            for (int i = 1; i < lists.length; i++) {
+                positions[i] = lists[i].seek(positions[i], id);
+                if (positions[i] == lists[i].size())
+                    break candidates;
+                if (lists[i].idAt(positions[i]) != id)
+                    continue candidates;
+            }
+            double lengthNorm = K1 * (1 - B + B * termsById.get(id).length / averageLength);
+            double score = 0;
+            for (int i = 0; i < lists.length; i++) {
+                int frequency = lists[i].frequencyAt(positions[i]);
+                score += idf[i] * frequency * (K1 + 1) / (frequency + lengthNorm);
+            }
+            if (best.size() < window) {
+                best.add(new double[] {score, id});
+            } else {
+                double[] worst = best.peek();
+                if (score > worst[0] || score == worst[0] && id > worst[1]) {
+                    best.poll();
+                    best.add(new double[] {score, id});
+                }
+            }
+        }
+
+        int matches = best.size();
+        int[] ranked = new int[matches];
+        for (int i = matches - 1; i >= 0; i--)
+            ranked[i] = (int) best.poll()[1];
+        return offset >= matches ? NO_TERMS : Arrays.copyOfRange(ranked, offset, matches);
+    }
+
+    private void put(int id, String text){
+        remove(id);
+        List<String> tokens = tokenize(text);
+        int[] terms = new int[tokens.size()];
+        Map<Integer, Integer> frequencies = new HashMap<>();
+        for (int i = 0; i < terms.length; i++) {
+            Integer ordinal = ordinals.get(tokens.get(i));
+            if (ordinal == null) {
+                ordinal = postings.size();
+                ordinals.put(tokens.get(i), ordinal);
+                postings.add(new PostingList());
+            }
+            terms[i] = ordinal;
+            frequencies.merge(ordinal, 1, Integer::sum);
+        }
+        frequencies.forEach((ordinal, frequency) -> postings.get(ordinal).add(id, frequency));
+        termsById.put(id, terms);
+        documentCount++;
+        totalLength += terms.length;
+    }
+
+    private void remove(int id){
+        int[] terms = termsById.remove(id);
+        if (terms == null)
+            return;
+        for (int ordinal : terms)
+            postings.get(ordinal).remove(id);
+        documentCount--;
+        totalLength -= terms.length;
+    }
+
+    /**
+     * Split text into lowercase runs of letters and digits, dropping runs longer than MAX_TERM_LENGTH.
+     */
+    public static List<String> tokenize(String text){
+        List<String> tokens = new ArrayList<>();
+        if (text == null)
+            return tokens;
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                if (i - start <= MAX_TERM_LENGTH)
+                    tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+}
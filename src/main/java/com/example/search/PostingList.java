@@ -0,0 +1,75 @@
+package com.example.search;
+
+import java.util.Arrays;
+
+/**
+ * The messages containing one term: message ids in ascending order, with the number of times the term occurs
+ * in each, as two parallel primitive arrays. New messages have the highest ids, so adding is usually an append.
+ */
+final class PostingList {
+
+    private int[] ids = new int[2];
+    private int[] frequencies = new int[2];
+    private int size;
+
+    int size(){
+        return size;
+    }
+
+    int idAt(int index){
+        return ids[index];
+    }
+
+    int frequencyAt(int index){
+        return frequencies[index];
+    }
+
+    void add(int id, int frequency){
+        int index = size > 0 && ids[size - 1] < id ? -(size + 1) : Arrays.binarySearch(ids, 0, size, id);
+        if (index >= 0) {
+            frequencies[index] = frequency;
+            return;
+        }
+        int insertAt = -index - 1;
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+            frequencies = Arrays.copyOf(frequencies, size * 2);
+        }
+        System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+        System.arraycopy(frequencies, insertAt, frequencies, insertAt + 1, size - insertAt);
+        ids[insertAt] = id;
+        frequencies[insertAt] = frequency;
+        size++;
+    }
+
+    void remove(int id){
+        int index = Arrays.binarySearch(ids, 0, size, id);
+        if (index < 0)
+            return;
+        System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+        System.arraycopy(frequencies, index + 1, frequencies, index, size - index - 1);
+        size--;
+        if (size > 16 && size < ids.length / 4) {
+            ids = Arrays.copyOf(ids, ids.length / 2);
+            frequencies = Arrays.copyOf(frequencies, frequencies.length / 2);
+        }
+    }
+
+    /**
+     * Find the first position at or after from whose id is at least id, galloping then binary searching.
+     * @return the position, or size if there is none.
+     */
+    int seek(int from, int id){
+        int step = 1;
+        int low = from;
+        int high = from;
+        while (high < size && ids[high] < id) {
+            low = high + 1;
+            high = from + step;
+            step <<= 1;
+        }
+        high = Math.min(high, size);
+        int index = Arrays.binarySearch(ids, low, high, id);
+        return index >= 0 ? index : -index - 1;
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PreDestroy;
+import com.example.entity.Account;
+import com.example.repository.AccountRepository;
+import com.example.exception.*;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+/**
+ * Checks login credentials off the request threads.
+ *
+ * Lookups and password checks run on a dedicated, bounded pool (socialmedia.login.threads workers and
+ * socialmedia.login.queue-capacity waiting checks), so expensive hashing can never take Tomcat's threads.
+ * When the pool is saturated a login is rejected with LoginUnavailableException instead of queueing forever.
+ *
+ * Credentials are cached by username: known accounts for socialmedia.login.account-ttl-ms, unknown usernames
+ * for the shorter socialmedia.login.unknown-username-ttl-ms, so a burst of attempts against usernames that
+ * do not exist costs one database read per username. Unknown usernames are still checked against a dummy
+ * hash, so they take as long as a wrong password.
+ */
+@Component
+public class CredentialVerifier {
+
+    // Login failures, wrapped once: CompletableFuture passes a CompletionException along its dependent stages
+    // as it is, where it would wrap any other exception in a new one, stack trace included.
+    private static final CompletionException UNKNOWN_USERNAME =
+            new CompletionException(new LoginFailedException("The username you input does not exist."));
+    private static final CompletionException WRONG_PASSWORD =
+            new CompletionException(new LoginFailedException("The password does not match the account."));
+    private static final CompletionException UNAVAILABLE =
+            new CompletionException(new LoginUnavailableException("Too many logins in progress, try again later."));
+
+    private final AccountRepository accountRepository;
+    private final PasswordHasher passwordHasher;
+    private final ThreadPoolExecutor executor;
+    private final Cache<String, Optional<Account>> credentials;
+    private final String dummyPassword;
+
+    @Autowired
+    public CredentialVerifier(AccountRepository accountRepository, PasswordHasher passwordHasher,
+                              @Value("${socialmedia.login.threads:0}") int threads,
+                              @Value("${socialmedia.login.queue-capacity:1024}") int queueCapacity,
+                              @Value("${socialmedia.login.cache-size:100000}") long cacheSize,
+                              @Value("${socialmedia.login.account-ttl-ms:30000}") long accountTtlMillis,
+                              @Value("${socialmedia.login.unknown-username-ttl-ms:5000}") long unknownUsernameTtlMillis){
+        this.accountRepository = accountRepository;
+        this.passwordHasher = passwordHasher;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new VerifierThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+        long accountTtlNanos = TimeUnit.MILLISECONDS.toNanos(accountTtlMillis);
+        long unknownUsernameTtlNanos = TimeUnit.MILLISECONDS.toNanos(unknownUsernameTtlMillis);
+        this.credentials = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfter(new Expiry<String, Optional<Account>>() {
+                    @Override
+                    public long expireAfterCreate(String username, Optional<Account> account, long currentTime) {
+                        return account.isPresent() ? accountTtlNanos : unknownUsernameTtlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String username, Optional<Account> account, long currentTime, long currentDuration) {
+                        return expireAfterCreate(username, account, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String username, Optional<Account> account, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        this.dummyPassword = passwordHasher.hash("dummy password for unknown usernames");
+    }
+
+    /**
+     * Check a username and password on the verifier pool.
+     * @param username the username typed by the user.
+     * @param rawPassword the password typed by the user.
+     * @return a future completed with the account if the credentials match, or failed with
+     *  LoginFailedException if they do not, or LoginUnavailableException if the pool is saturated.
+     */
+    public CompletableFuture<Account> verify(String username, String rawPassword){
+        try {
+            return CompletableFuture.supplyAsync(() -> check(username, rawPassword), this.executor);
+        } catch (RejectedExecutionException e) {
+            CompletableFuture<Account> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(UNAVAILABLE);
+            return rejected;
+        }
+    }
+
+    /**
+     * Forget what is cached for a username, after the account was created or changed.
+     * @param username the username.
+     */
+    public void invalidate(String username){
+        if (username != null)
+            this.credentials.invalidate(username);
+    }
+
+    /**
+     * @return the credential cache, for metrics binding.
+     */
+    public Cache<String, Optional<Account>> credentialCache(){
+        return this.credentials;
+    }
+
+    /**
+     * @return the verifier pool, for metrics binding.
+     */
+    public ThreadPoolExecutor executor(){
+        return this.executor;
+    }
+
+    @PreDestroy
+    public void shutdown(){
+        this.executor.shutdownNow();
+    }
+
+    private Account check(String username, String rawPassword){
+        Optional<Account> account = username == null ? Optional.empty()
+                : this.credentials.get(username, this.accountRepository::findByUsername);
+        String storedPassword = account.map(Account::getPassword).orElse(this.dummyPassword);
+        boolean matches = this.passwordHasher.matches(rawPassword, storedPassword);
+        if (!account.isPresent())
+            throw UNKNOWN_USERNAME;
+        if (!matches)
+            throw WRONG_PASSWORD;
+        Account found = account.get();
+        // the password the user typed, never the stored hash
+        return new Account(found.getAccountId(), found.getUsername(), rawPassword);
+    }
+
+    private static final class VerifierThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "credential-verifier-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
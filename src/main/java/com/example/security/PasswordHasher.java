@@ -0,0 +1,23 @@
+package com.example.security;
+
+/**
+ * Turns raw passwords into the form stored in account.password, and checks raw passwords against it.
+ *
+ * Implementations must compare in constant time, so that the time a check takes does not reveal how much
+ * of the password was right. The implementation in use is selected with socialmedia.password.hasher.
+ */
+public interface PasswordHasher {
+
+    /**
+     * @param rawPassword the password as typed by the user.
+     * @return the value to store in account.password.
+     */
+    String hash(String rawPassword);
+
+    /**
+     * @param rawPassword the password as typed by the user.
+     * @param storedPassword the value stored in account.password.
+     * @return true if the raw password is the one that was stored.
+     */
+    boolean matches(String rawPassword, String storedPassword);
+}
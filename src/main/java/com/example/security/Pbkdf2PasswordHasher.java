@@ -0,0 +1,79 @@
+package com.example.security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * Stores passwords as salted PBKDF2-HMAC-SHA256 hashes, in the form pbkdf2$iterations$salt$hash.
+ *
+ * Stored values without the pbkdf2$ prefix are treated as plain text, so the accounts created before this
+ * hasher was selected can still log in.
+ */
+@Component
+@ConditionalOnProperty(name = "socialmedia.password.hasher", havingValue = "pbkdf2")
+public class Pbkdf2PasswordHasher implements PasswordHasher {
+
+    private static final String PREFIX = "pbkdf2$";
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    private final int iterations;
+    private final SecureRandom random = new SecureRandom();
+    private final PlainTextPasswordHasher legacy = new PlainTextPasswordHasher();
+
+    @Autowired
+    public Pbkdf2PasswordHasher(@Value("${socialmedia.password.pbkdf2-iterations:120000}") int iterations){
+        if (iterations < 1)
+            throw new IllegalArgumentException("socialmedia.password.pbkdf2-iterations must be positive.");
+        this.iterations = iterations;
+    }
+
+    @Override
+    public String hash(String rawPassword) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        Base64.Encoder encoder = Base64.getEncoder();
+        return PREFIX + iterations + "$" + encoder.encodeToString(salt) + "$"
+                + encoder.encodeToString(pbkdf2(rawPassword, salt, iterations));
+    }
+
+    @Override
+    public boolean matches(String rawPassword, String storedPassword) {
+        if (rawPassword == null || storedPassword == null)
+            return false;
+        if (!storedPassword.startsWith(PREFIX))
+            return legacy.matches(rawPassword, storedPassword);
+        String[] parts = storedPassword.split("\\$");
+        if (parts.length != 4)
+            return false;
+        try {
+            Base64.Decoder decoder = Base64.getDecoder();
+            byte[] expected = decoder.decode(parts[3]);
+            byte[] actual = pbkdf2(rawPassword, decoder.decode(parts[2]), Integer.parseInt(parts[1]));
+            return MessageDigest.isEqual(expected, actual);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static byte[] pbkdf2(String rawPassword, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(rawPassword.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available.", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
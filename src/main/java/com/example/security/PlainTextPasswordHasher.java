@@ -0,0 +1,39 @@
+package com.example.security;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Stores passwords as they are, which is what data.sql and existing accounts use.
+ *
+ * Both sides are digested with SHA-256 before MessageDigest.isEqual, so the comparison takes the same time
+ * whatever the passwords' contents and lengths.
+ */
+@Component
+@ConditionalOnProperty(name = "socialmedia.password.hasher", havingValue = "plain", matchIfMissing = true)
+public class PlainTextPasswordHasher implements PasswordHasher {
+
+    @Override
+    public String hash(String rawPassword) {
+        return rawPassword;
+    }
+
+    @Override
+    public boolean matches(String rawPassword, String storedPassword) {
+        if (rawPassword == null || storedPassword == null)
+            return false;
+        return MessageDigest.isEqual(digest(rawPassword), digest(storedPassword));
+    }
+
+    static byte[] digest(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+    }
+}
@@ -1,24 +1,78 @@
 package com.example.service;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.apache.tomcat.jni.User;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
+import com.example.cache.AccountIdCache;
 import com.example.entity.Account;
 import com.example.repository.AccountRepository;
+import com.example.security.CredentialVerifier;
+import com.example.security.PasswordHasher;
 import com.example.exception.*;
 
 @Service
 public class AccountService {
 
+    private static final Logger log = LoggerFactory.getLogger(AccountService.class);
+
+    // Rejections with a fixed message, thrown as shared instances: see SocialMediaException
+    private static final RegisterFailedException MISSING_USERNAME = new RegisterFailedException("The username not exiists or is empty.");
+    private static final RegisterFailedException SHORT_PASSWORD = new RegisterFailedException("The password not exists or too short, should contain at least 4 characters.");
+    private static final UsernameAlreadyExistsException USERNAME_TAKEN = new UsernameAlreadyExistsException("The username you want to register already exists.");
+
     private AccountRepository accountRepository;
+    private AccountIdCache accountIdCache;
+    private PasswordHasher passwordHasher;
+    private CredentialVerifier credentialVerifier;
+    private TransactionTemplate readOnlyTransaction;
 
     @Autowired
-    public AccountService(AccountRepository accountRepository){
+    public AccountService(AccountRepository accountRepository, AccountIdCache accountIdCache,
+                          PasswordHasher passwordHasher, CredentialVerifier credentialVerifier,
+                          PlatformTransactionManager transactionManager){
         this.accountRepository = accountRepository;
+        this.accountIdCache = accountIdCache;
+        this.passwordHasher = passwordHasher;
+        this.credentialVerifier = credentialVerifier;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Load every existing account id into the AccountIdCache once the application has started.
+     * This runs on its own thread so that startup does not wait on the account table: ids it has not
+     * reached yet are cache misses, which are checked against the database.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmAccountIdCache(){
+        Thread warmer = new Thread(() -> {
+            long started = System.nanoTime();
+            try {
+                this.readOnlyTransaction.executeWithoutResult(status -> {
+                    try (Stream<Integer> accountIds = this.accountRepository.streamAllAccountIds()) {
+                        accountIds.forEach(this.accountIdCache::add);
+                    }
+                });
+                log.info("Account id cache warmed in {} ms.", (System.nanoTime() - started) / 1_000_000);
+            } catch (RuntimeException e) {
+                log.warn("Account id cache warm-up failed: {}", e.getMessage());
+            }
+        }, "account-cache-warmer");
+        warmer.setDaemon(true);
+        warmer.start();
     }
 
     /**
@@ -27,42 +81,61 @@ public class AccountService {
      *  - String username: not empty, not exist.
      *  - String password: length >= 4.
      * @return 
-     *  - if success, return the Account just stored onto database with account id. 
+     *  - if success, return the Account just stored with account id, carrying the submitted password, never
+     *    the stored hash. inputAccount is not modified.
      *  - if username already exists, throws UsernameAlreadyExistsException. 
      *  - Otherwise, throws RegisterFailedException. 
      */
     public Account registerService(Account inputAccount) throws RegisterFailedException, UsernameAlreadyExistsException{
 
         if(inputAccount.getUsername() == null || inputAccount.getUsername().length() < 1)
-            throw new RegisterFailedException("The username not exiists or is empty.");
+            throw MISSING_USERNAME;
         if(inputAccount.getPassword() == null || inputAccount.getPassword().length() < 4)
-            throw new RegisterFailedException("The password not exists or too short, should contain at least 4 characters.");
+            throw SHORT_PASSWORD;
 
         Optional<Account> optionAccount = this.accountRepository.findByUsername(inputAccount.getUsername());
         if(optionAccount.isPresent()){
-            throw new UsernameAlreadyExistsException("The username you want to register already exists.");
+            throw USERNAME_TAKEN;
         } else {
-            return this.accountRepository.save(inputAccount);
+            Account account = this.accountRepository.save(
+                    new Account(inputAccount.getUsername(), this.passwordHasher.hash(inputAccount.getPassword())));
+            this.accountIdCache.add(account.getAccountId());
+            this.credentialVerifier.invalidate(account.getUsername());
+            return new Account(account.getAccountId(), account.getUsername(), inputAccount.getPassword());
         }
     }
 
     /**
      * Service that login an account.
+     * Blocks the calling thread until the CredentialVerifier has checked the credentials.
      * @param inputAccount, should contain:
      *  - String username: matches an exist account record.
      *  - String password: matches the existing account with given account username.
      * @return
      *  - If both matches, return account with account id.
      *  - Otherwise, throws LoginFailedException.
+     * @throws LoginUnavailableException if the verifier pool is saturated.
      */
-    public Account loginService(Account inputAccount) throws LoginFailedException {
-        Account account = accountRepository.findByUsername(inputAccount.getUsername())
-            .orElseThrow(() -> new LoginFailedException("The username you input does not exist."));
-        
-        if (!account.getPassword().equals(inputAccount.getPassword())) {
-            throw new LoginFailedException("The password does not match the account.");
+    public Account loginService(Account inputAccount) throws LoginFailedException, LoginUnavailableException {
+        try {
+            return loginServiceAsync(inputAccount).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof LoginFailedException)
+                throw (LoginFailedException) e.getCause();
+            if (e.getCause() instanceof LoginUnavailableException)
+                throw (LoginUnavailableException) e.getCause();
+            throw e;
         }
-    
-        return account;
+    }
+
+    /**
+     * Service that login an account without blocking the calling thread.
+     * The lookup and password check run on the CredentialVerifier pool.
+     * @param inputAccount, should contain username and password.
+     * @return a future completed with the account with account id if both match. Otherwise the future fails
+     *  with LoginFailedException, or with LoginUnavailableException if the verifier pool is saturated.
+     */
+    public CompletableFuture<Account> loginServiceAsync(Account inputAccount) {
+        return this.credentialVerifier.verify(inputAccount.getUsername(), inputAccount.getPassword());
     }
 }
@@ -0,0 +1,301 @@
+package com.example.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PreDestroy;
+import com.example.event.MessageEvent;
+import com.example.exception.*;
+
+/**
+ * Live feed of message changes, fanned out to Server-Sent Events subscribers.
+ *
+ * Every MessageEvent gets the next event id and is kept in a ring of the last socialmedia.feed.replay-size
+ * events, so a client that reconnects with Last-Event-ID gets what it missed. Event ids are prefixed with the
+ * time this feed started, as "{boot}-{sequence}", since the sequence starts over on every restart. If the
+ * Last-Event-ID is from another boot or ahead of the sequence, or the events it missed are no longer in the
+ * ring or do not fit in its queue, the client first gets a "reset" event and should reload the messages it shows.
+ *
+ * Publishing never waits for a subscriber: the publishing thread only takes the next event id and stores the
+ * event in the ring, under a short lock. The fan-out to the subscribers runs on a small sender pool, one event
+ * at a time in id order. Each subscriber has a queue of socialmedia.feed.subscriber-buffer events, drained on
+ * the same pool, and a subscriber whose queue is full is dropped. The client reconnects with its last event id
+ * and catches up from the ring.
+ */
+@Component
+public class MessageFeed {
+
+    private static final Logger log = LoggerFactory.getLogger(MessageFeed.class);
+    private static final FeedSubscriptionRejectedException TOO_MANY_SUBSCRIBERS =
+            new FeedSubscriptionRejectedException("Too many feed subscribers, try again later.");
+
+    /**
+     * Name of the event sent when the events after a Last-Event-ID are no longer available.
+     */
+    public static final String RESET_EVENT = "reset";
+
+    private final FeedEntry[] ring;
+    private final int subscriberBuffer;
+    private final int maxSubscribers;
+    private final long timeoutMillis;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ExecutorService senders;
+    private final ConcurrentLinkedQueue<FeedEntry> undispatched = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean dispatching = new AtomicBoolean();
+    private final String bootPrefix = System.currentTimeMillis() + "-";
+    private long lastEventId;
+
+    @Autowired
+    public MessageFeed(@Value("${socialmedia.feed.replay-size:10000}") int replaySize,
+                       @Value("${socialmedia.feed.subscriber-buffer:256}") int subscriberBuffer,
+                       @Value("${socialmedia.feed.max-subscribers:10000}") int maxSubscribers,
+                       @Value("${socialmedia.feed.timeout-ms:300000}") long timeoutMillis,
+                       @Value("${socialmedia.feed.threads:0}") int threads){
+        if (replaySize < 1 || subscriberBuffer < 1 || maxSubscribers < 1 || timeoutMillis < 0)
+            throw new IllegalArgumentException("Invalid socialmedia.feed settings.");
+        this.ring = new FeedEntry[replaySize];
+        this.subscriberBuffer = subscriberBuffer;
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMillis = timeoutMillis;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "message-feed-sender-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Open a subscription.
+     * @param postedBy only send the events of this author, null for all.
+     * @param lastEventId the id of the last event the client received, null for a new client.
+     * @return the emitter to return from the handler.
+     * @throws FeedSubscriptionRejectedException if there are already socialmedia.feed.max-subscribers subscribers.
+     */
+    public SseEmitter subscribe(Integer postedBy, String lastEventId) throws FeedSubscriptionRejectedException{
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw TOO_MANY_SUBSCRIBERS;
+        }
+        Subscriber subscriber = new Subscriber(new SseEmitter(timeoutMillis), postedBy);
+        subscriber.emitter.onCompletion(() -> remove(subscriber));
+        subscriber.emitter.onTimeout(() -> remove(subscriber));
+        subscriber.emitter.onError(e -> remove(subscriber));
+
+        synchronized (this) {
+            if (lastEventId != null) {
+                List<FeedEntry> missed = replayAfter(lastEventId);
+                if (missed == null || !missed.stream().allMatch(subscriber::offer)) {
+                    subscriber.queue.clear();
+                    subscriber.reset = true;
+                }
+            }
+            // everything up to here was replayed or is covered by the reset, the fan-out sends what follows
+            subscriber.after = this.lastEventId;
+            subscribers.add(subscriber);
+        }
+        try {
+            // held by the emitter until the handler returns, then sent first, before any event
+            subscriber.emitter.send(SseEmitter.event().comment("subscribed"));
+        } catch (IOException e) {
+            remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+            return subscriber.emitter;
+        }
+        subscriber.schedule();
+        return subscriber.emitter;
+    }
+
+    /**
+     * Give a change the next event id, keep it in the ring, and hand it to the sender pool for the fan-out.
+     * Entries are handed over in id order, under the same lock that assigns the ids.
+     */
+    @EventListener
+    public void onMessageEvent(MessageEvent event){
+        synchronized (this) {
+            FeedEntry entry = new FeedEntry(++lastEventId, event);
+            ring[(int) (entry.id % ring.length)] = entry;
+            undispatched.add(entry);
+        }
+        if (dispatching.compareAndSet(false, true))
+            senders.execute(this::dispatch);
+    }
+
+    /**
+     * Queue the handed over entries for every matching subscriber, oldest first. Runs on one sender at a time.
+     */
+    private void dispatch(){
+        try {
+            FeedEntry entry;
+            while ((entry = undispatched.poll()) != null) {
+                for (Subscriber subscriber : subscribers) {
+                    if (entry.id <= subscriber.after)
+                        continue;
+                    if (subscriber.offer(entry))
+                        subscriber.schedule();
+                    else
+                        drop(subscriber);
+                }
+            }
+        } finally {
+            dispatching.set(false);
+        }
+        if (!undispatched.isEmpty() && dispatching.compareAndSet(false, true))
+            senders.execute(this::dispatch);
+    }
+
+    /**
+     * @return the number of open subscriptions.
+     */
+    public int getSubscriberCount(){
+        return subscriberCount.get();
+    }
+
+    @PreDestroy
+    public void stop(){
+        senders.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            try {
+                subscriber.emitter.complete();
+            } catch (RuntimeException e) {
+                log.warn("Feed subscriber already closed: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @return the retained events after lastEventId, or null if lastEventId is not an id this feed has sent
+     *  or some of the events after it are no longer retained.
+     */
+    private List<FeedEntry> replayAfter(String lastEventId){
+        long sequence = sequenceOf(lastEventId);
+        return sequence < 0 ? null : replayAfter(sequence);
+    }
+
+    private List<FeedEntry> replayAfter(long lastEventId){
+        List<FeedEntry> missed = new ArrayList<>();
+        if (lastEventId > this.lastEventId)
+            return null;
+        if (lastEventId == this.lastEventId)
+            return missed;
+        long oldest = Math.max(1, this.lastEventId - ring.length + 1);
+        if (lastEventId + 1 < oldest)
+            return null;
+        for (long id = lastEventId + 1; id <= this.lastEventId; id++)
+            missed.add(ring[(int) (id % ring.length)]);
+        return missed;
+    }
+
+    /**
+     * @return the sequence of an event id of this boot, or -1 if it is from another boot or malformed.
+     */
+    private long sequenceOf(String eventId){
+        if (!eventId.startsWith(bootPrefix))
+            return -1;
+        try {
+            return Long.parseLong(eventId.substring(bootPrefix.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void drop(Subscriber subscriber){
+        log.warn("Dropping slow feed subscriber.");
+        remove(subscriber);
+        subscriber.emitter.complete();
+    }
+
+    private void remove(Subscriber subscriber){
+        subscribers.remove(subscriber);
+        if (subscriber.counted.compareAndSet(true, false))
+            subscriberCount.decrementAndGet();
+    }
+
+    private static final class FeedEntry {
+        final long id;
+        final MessageEvent event;
+
+        FeedEntry(long id, MessageEvent event){
+            this.id = id;
+            this.event = event;
+        }
+    }
+
+    /**
+     * One SSE connection. Its queue is drained by at most one sender task at a time, so events are sent in order.
+     */
+    private final class Subscriber {
+        final SseEmitter emitter;
+        final Integer postedBy;
+        final BlockingQueue<FeedEntry> queue = new ArrayBlockingQueue<>(subscriberBuffer);
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        final AtomicBoolean counted = new AtomicBoolean(true);
+        volatile boolean reset;
+        /** Id of the last event the subscriber got through replay or reset, set before it is subscribed. */
+        volatile long after;
+
+        Subscriber(SseEmitter emitter, Integer postedBy){
+            this.emitter = emitter;
+            this.postedBy = postedBy;
+        }
+
+        boolean accepts(MessageEvent event){
+            return postedBy == null || postedBy == event.getPostedBy();
+        }
+
+        /**
+         * @return false if the event is for this subscriber and its queue is full.
+         */
+        boolean offer(FeedEntry entry){
+            return !accepts(entry.event) || queue.offer(entry);
+        }
+
+        void schedule(){
+            if (scheduled.compareAndSet(false, true))
+                senders.execute(this::drain);
+        }
+
+        private void drain(){
+            try {
+                if (reset) {
+                    reset = false;
+                    emitter.send(SseEmitter.event().name(RESET_EVENT).data(""));
+                }
+                FeedEntry entry;
+                while ((entry = queue.poll()) != null) {
+                    emitter.send(SseEmitter.event()
+                            .id(bootPrefix + entry.id)
+                            .name(entry.event.getType().name().toLowerCase())
+                            .data(entry.event, MediaType.APPLICATION_JSON));
+                }
+            } catch (IOException | IllegalStateException e) {
+                remove(this);
+                emitter.completeWithError(e);
+                return;
+            } finally {
+                scheduled.set(false);
+            }
+            if (!queue.isEmpty())
+                schedule();
+        }
+    }
+}
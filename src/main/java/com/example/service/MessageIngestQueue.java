@@ -0,0 +1,205 @@
+package com.example.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import com.example.entity.Message;
+import com.example.repository.MessageRepository;
+import com.example.exception.*;
+
+/**
+ * Write-behind queue for new messages.
+ *
+ * When enabled, accepted messages are put on a bounded queue and a single writer thread stores them in
+ * batches: a batch is flushed when it reaches batchSize messages, or lingerMs after its first message arrived.
+ * Each batch is one transaction, so Hibernate sends it as one JDBC batch and pays for one commit.
+ * The caller still blocks until its own batch is committed, and gets the message back with its generated id.
+ *
+ * When the queue is full, submit waits up to offerTimeoutMs for room and then rejects the message. A caller
+ * waits up to resultTimeoutMs for the writer to take its message into a flushing batch. If the writer has not
+ * taken it by then, the message is cancelled, is never stored, and the caller gets a rejection. Once taken, the
+ * caller waits for the batch, whose transaction times out after resultTimeoutMs rounded up to seconds, so a
+ * message is stored exactly when its caller gets it back.
+ */
+@Component
+public class MessageIngestQueue {
+
+    private static final MessageIngestRejectedException QUEUE_FULL =
+            new MessageIngestRejectedException("The message ingest queue is full.");
+    private static final MessageIngestRejectedException STORE_TIMED_OUT =
+            new MessageIngestRejectedException("Timed out waiting for the message to be stored.");
+
+    private final MessageRepository messageRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final long offerTimeoutMillis;
+    private final long resultTimeoutMillis;
+    private final BlockingQueue<PendingMessage> queue;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    @Autowired
+    public MessageIngestQueue(MessageRepository messageRepository, PlatformTransactionManager transactionManager,
+                              @Value("${socialmedia.ingest.enabled:false}") boolean enabled,
+                              @Value("${socialmedia.ingest.batch-size:50}") int batchSize,
+                              @Value("${socialmedia.ingest.linger-ms:5}") long lingerMillis,
+                              @Value("${socialmedia.ingest.queue-capacity:10000}") int queueCapacity,
+                              @Value("${socialmedia.ingest.offer-timeout-ms:100}") long offerTimeoutMillis,
+                              @Value("${socialmedia.ingest.result-timeout-ms:5000}") long resultTimeoutMillis){
+        if (batchSize < 1 || lingerMillis < 0 || queueCapacity < 1 || offerTimeoutMillis < 0 || resultTimeoutMillis < 0)
+            throw new IllegalArgumentException("Invalid socialmedia.ingest settings.");
+        this.messageRepository = messageRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setTimeout((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(resultTimeoutMillis + 999)));
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.resultTimeoutMillis = resultTimeoutMillis;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    /**
+     * @return true if new messages should go through this queue.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the number of messages waiting to be written.
+     */
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    @PostConstruct
+    public void start(){
+        if (!enabled)
+            return;
+        running = true;
+        writer = new Thread(this::drainLoop, "message-ingest-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Stop accepting messages, and write out everything that is still queued.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writer == null)
+            return;
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    /**
+     * Queue an already validated message and wait until its batch is stored.
+     * @param message the message to store, without message id.
+     * @return the same message, with its generated message id.
+     * @throws MessageIngestRejectedException if the queue stayed full for offerTimeoutMs, is shutting down, or
+     *  the writer did not take the message within resultTimeoutMs. The message is then not stored.
+     * @throws MessageCreationFailedException if the batch holding the message could not be stored.
+     */
+    public Message submit(Message message) throws MessageIngestRejectedException, MessageCreationFailedException {
+        PendingMessage pending = new PendingMessage(message);
+        try {
+            if (!running || !queue.offer(pending, offerTimeoutMillis, TimeUnit.MILLISECONDS))
+                throw QUEUE_FULL;
+            try {
+                return pending.result.get(resultTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (pending.state.compareAndSet(PendingMessage.QUEUED, PendingMessage.CANCELLED))
+                    throw STORE_TIMED_OUT;
+                // already in a flushing batch, bounded by the transaction timeout
+                return pending.result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessageIngestRejectedException("Interrupted while waiting for the message to be stored.");
+        } catch (ExecutionException e) {
+            throw new MessageCreationFailedException("The message could not be stored: " + e.getCause().getMessage());
+        }
+    }
+
+    private void drainLoop(){
+        List<PendingMessage> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingMessage first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null)
+                    continue;
+                batch.add(first);
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0)
+                        break;
+                    PendingMessage next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null)
+                        break;
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                running = false;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingMessage> batch){
+        batch.removeIf(pending -> !pending.state.compareAndSet(PendingMessage.QUEUED, PendingMessage.TAKEN));
+        if (batch.isEmpty())
+            return;
+        List<Message> messages = new ArrayList<>(batch.size());
+        for (PendingMessage pending : batch)
+            messages.add(pending.message);
+        try {
+            List<Message> saved = transactionTemplate.execute(status -> messageRepository.saveAll(messages));
+            for (int i = 0; i < batch.size(); i++)
+                batch.get(i).result.complete(saved.get(i));
+        } catch (RuntimeException e) {
+            for (PendingMessage pending : batch)
+                pending.result.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * A queued message. The writer moves it from QUEUED to TAKEN right before storing it, and a caller that
+     * timed out moves it from QUEUED to CANCELLED, so exactly one of them wins.
+     */
+    private static final class PendingMessage {
+        static final int QUEUED = 0;
+        static final int TAKEN = 1;
+        static final int CANCELLED = 2;
+
+        private final Message message;
+        private final CompletableFuture<Message> result = new CompletableFuture<>();
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+
+        private PendingMessage(Message message){
+            this.message = message;
+        }
+    }
+}
@@ -2,25 +2,89 @@ package com.example.service;
 
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Consumer;
+import com.example.cache.AccountIdCache;
+import com.example.cache.MessageCache;
+import com.example.cache.TimelineCache;
+import com.example.dto.AccountTimelines;
+import com.example.dto.BatchItemResult;
+import com.example.dto.MessagePage;
 import com.example.entity.Account;
 import com.example.entity.Message;
+import com.example.event.MessageEvent;
 import com.example.repository.AccountRepository;
 import com.example.repository.MessageRepository;
+import com.example.search.MessageSearchIndex;
 import com.example.exception.*;
 
 @Service
 public class MessageService {
+    /**
+     * Upper bound of the page size a client may ask for.
+     */
+    public static final int MAX_PAGE_SIZE = 1000;
+    /**
+     * Upper bound of the number of messages in one batch request.
+     */
+    public static final int MAX_BATCH_SIZE = 1000;
+    /**
+     * Upper bound of how deep into the ranked results of a search a client may page.
+     */
+    public static final int MAX_SEARCH_DEPTH = 10000;
+
+    // Rejections with a fixed message, thrown as shared instances: see SocialMediaException
+    private static final MessageCreationFailedException INVALID_TEXT = new MessageCreationFailedException("Message text must be between 1 and 255 characters.");
+    private static final MessageCreationFailedException MISSING_TIME = new MessageCreationFailedException("Message timePostedEpoch must be set.");
+    private static final MessageCreationFailedException UNKNOWN_AUTHOR = new MessageCreationFailedException("Message postedBy does not matach an existing account id.");
+    private static final MessageCreationFailedException BATCH_TOO_LARGE = new MessageCreationFailedException("A batch can hold at most " + MAX_BATCH_SIZE + " messages.");
+    private static final InvalidPageRequestException TOO_MANY_IDS = new InvalidPageRequestException("At most " + MAX_PAGE_SIZE + " ids can be asked at once.");
+    private static final InvalidPageRequestException TOO_MANY_ACCOUNTS = new InvalidPageRequestException("At most " + MAX_PAGE_SIZE + " accounts can be asked at once.");
+    private static final InvalidPageRequestException NEGATIVE_CURSOR = new InvalidPageRequestException("The cursor must not be negative.");
+    private static final InvalidPageRequestException INVALID_PAGE_SIZE = new InvalidPageRequestException("The page size must be between 1 and " + MAX_PAGE_SIZE + ".");
+    private static final InvalidPageRequestException MALFORMED_CURSOR = new InvalidPageRequestException("The cursor is malformed.");
+    private static final InvalidPageRequestException EMPTY_QUERY = new InvalidPageRequestException("The search query must contain a word.");
+    private static final InvalidPageRequestException SEARCH_TOO_DEEP = new InvalidPageRequestException("Search results can be paged up to " + MAX_SEARCH_DEPTH + " matches.");
+    private static final MessageIdNotExistsException MESSAGE_NOT_FOUND = new MessageIdNotExistsException("The message id does not exist.");
+    private static final MessageTextException INVALID_UPDATE_TEXT = new MessageTextException("Message text not exist or empty or over 255 characters.");
+
     private AccountRepository accountRepository;
     private MessageRepository messageRepository;
+    private MessageIngestQueue messageIngestQueue;
+    private AccountIdCache accountIdCache;
+    private MessageCache messageCache;
+    private TimelineCache timelineCache;
+    private MessageSearchIndex messageSearchIndex;
+    private ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public MessageService(AccountRepository accountRepository, MessageRepository messageRepository){
+    public MessageService(AccountRepository accountRepository, MessageRepository messageRepository,
+                          MessageIngestQueue messageIngestQueue,
+                          AccountIdCache accountIdCache, MessageCache messageCache,
+                          TimelineCache timelineCache, MessageSearchIndex messageSearchIndex,
+                          ApplicationEventPublisher eventPublisher){
         this.accountRepository = accountRepository;
         this.messageRepository = messageRepository;
+        this.messageIngestQueue = messageIngestQueue;
+        this.accountIdCache = accountIdCache;
+        this.messageCache = messageCache;
+        this.timelineCache = timelineCache;
+        this.messageSearchIndex = messageSearchIndex;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -29,20 +93,133 @@ public class MessageService {
      *  - message text, length between 1~255
      *  - postedBy, matches existing account id
      *  - timePostedEpoch, not empty
+     * When the ingest queue is enabled, the message is stored in a batch with other new messages.
      * @return Message just created with message id if all condition satisfied.
      * @throws MessageCreationFailedException
+     * @throws MessageIngestRejectedException if the ingest queue is enabled and stays full.
      */
-    public Message createMessage(Message message) throws MessageCreationFailedException{
+    public Message createMessage(Message message) throws MessageCreationFailedException, MessageIngestRejectedException{
         String messageText = message.getMessageText();
         Integer postedBy = message.getPostedBy();
         
-        if (messageText == null || messageText.length() < 1 || messageText.length() > 255)
-            throw new MessageCreationFailedException("Message text must be between 1 and 255 characters.");
+        if (!isValidMessageText(messageText))
+            throw INVALID_TEXT;
 
-        if (!this.accountRepository.findById(postedBy).isPresent())
-            throw new MessageCreationFailedException("Message postedBy does not matach an existing account id.");
-        
-        return this.messageRepository.save(message);
+        if (message.getTimePostedEpoch() == null)
+            throw MISSING_TIME;
+
+        if (postedBy == null || !accountExists(postedBy))
+            throw UNKNOWN_AUTHOR;
+
+        Message created = this.messageIngestQueue.isEnabled() ?
+                this.messageIngestQueue.submit(message) : this.messageRepository.save(message);
+        this.messageCache.put(created);
+        this.eventPublisher.publishEvent(MessageEvent.created(created));
+        return created;
+    }
+
+    /**
+     * Create a batch of new messages, with the same rules as createMessage for each of them.
+     * Authors missing from the AccountIdCache are checked with one IN query, and all valid messages are
+     * stored in one transaction, as one JDBC batch. An invalid message does not fail the others.
+     * @param messages the messages to create, at most MAX_BATCH_SIZE.
+     * @return one result per message, in request order.
+     * @throws MessageCreationFailedException if there are more than MAX_BATCH_SIZE messages.
+     */
+    public List<BatchItemResult> createMessages(List<Message> messages) throws MessageCreationFailedException{
+        if (messages.size() > MAX_BATCH_SIZE)
+            throw BATCH_TOO_LARGE;
+
+        Set<Integer> unknownAuthors = new HashSet<>();
+        for (Message message : messages) {
+            if (message != null && message.getPostedBy() != null && !this.accountIdCache.contains(message.getPostedBy()))
+                unknownAuthors.add(message.getPostedBy());
+        }
+        Set<Integer> existingAuthors = unknownAuthors.isEmpty() ?
+                Collections.emptySet() : new HashSet<>(this.accountRepository.findExistingIds(unknownAuthors));
+        existingAuthors.forEach(this.accountIdCache::add);
+
+        BatchItemResult[] results = new BatchItemResult[messages.size()];
+        List<Message> toSave = new ArrayList<>();
+        List<Integer> toSaveIndexes = new ArrayList<>();
+        for (int i = 0; i < messages.size(); i++) {
+            Message message = messages.get(i);
+            if (message == null || !isValidMessageText(message.getMessageText())) {
+                results[i] = BatchItemResult.rejected(i, "Message text must be between 1 and 255 characters.");
+            } else if (message.getTimePostedEpoch() == null) {
+                results[i] = BatchItemResult.rejected(i, "Message timePostedEpoch must be set.");
+            } else if (message.getPostedBy() == null
+                    || unknownAuthors.contains(message.getPostedBy()) && !existingAuthors.contains(message.getPostedBy())) {
+                results[i] = BatchItemResult.rejected(i, "Message postedBy does not matach an existing account id.");
+            } else {
+                message.setMessageId(null);
+                toSave.add(message);
+                toSaveIndexes.add(i);
+            }
+        }
+
+        List<Message> saved = toSave.isEmpty() ? Collections.emptyList() : this.messageRepository.saveAll(toSave);
+        for (int i = 0; i < saved.size(); i++) {
+            this.messageCache.put(saved.get(i));
+            this.eventPublisher.publishEvent(MessageEvent.created(saved.get(i)));
+            results[toSaveIndexes.get(i)] = BatchItemResult.created(toSaveIndexes.get(i), saved.get(i));
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Get several messages by message id, through the MessageCache.
+     * The messages that are not cached are read with one findAllById.
+     * @param ids the message ids, at most MAX_PAGE_SIZE.
+     * @return one entry per id, in request order, null where the id does not exist.
+     * @throws InvalidPageRequestException if there are more than MAX_PAGE_SIZE ids.
+     */
+    public List<Message> getMessagesByIds(List<Integer> ids) throws InvalidPageRequestException{
+        if (ids.size() > MAX_PAGE_SIZE)
+            throw TOO_MANY_IDS;
+
+        Map<Integer, Message> found = new HashMap<>();
+        Set<Integer> missing = new HashSet<>();
+        for (Integer id : ids) {
+            Message cached = id == null ? null : this.messageCache.getIfPresent(id);
+            if (cached != null)
+                found.put(id, cached);
+            else if (id != null)
+                missing.add(id);
+        }
+        if (!missing.isEmpty()) {
+            for (Message message : this.messageRepository.findAllById(missing)) {
+                this.messageCache.put(message);
+                found.put(message.getMessageId(), message);
+            }
+        }
+
+        List<Message> messages = new ArrayList<>(ids.size());
+        for (Integer id : ids)
+            messages.add(id == null ? null : found.get(id));
+        return messages;
+    }
+
+    /**
+     * Message text rule shared by creation and update: not null, between 1 and 255 characters.
+     */
+    private static boolean isValidMessageText(String messageText){
+        return messageText != null && messageText.length() >= 1 && messageText.length() <= 255;
+    }
+
+    /**
+     * Check that an account exists, from the AccountIdCache when possible.
+     * On a miss the database is asked with an existence query, and a positive answer is cached.
+     * @param accountId the account id.
+     * @return true if the account exists.
+     */
+    private boolean accountExists(int accountId){
+        if (this.accountIdCache.contains(accountId))
+            return true;
+        if (!this.accountRepository.existsById(accountId))
+            return false;
+        this.accountIdCache.add(accountId);
+        return true;
     }
 
     /**
@@ -54,38 +231,76 @@ public class MessageService {
     }
 
     /**
-     * Get a specific message by message id.
+     * Get one page of messages in message id order, using a seek on message id instead of an offset.
+     * @param after the cursor, only messages with an id greater than it are returned. 0 for the first page.
+     * @param limit the page size, between 1 and MAX_PAGE_SIZE.
+     * @return MessagePage with at most limit messages, and the cursor of the next page if the page is full.
+     * @throws InvalidPageRequestException if the cursor or the page size is out of range.
+     */
+    public MessagePage getMessagePage(int after, int limit) throws InvalidPageRequestException{
+        if (after < 0)
+            throw NEGATIVE_CURSOR;
+        if (limit < 1 || limit > MAX_PAGE_SIZE)
+            throw INVALID_PAGE_SIZE;
+
+        List<Message> messages = this.messageRepository.findByMessageIdGreaterThanOrderByMessageIdAsc(after, PageRequest.of(0, limit));
+        String nextCursor = messages.size() < limit ? null : String.valueOf(messages.get(messages.size() - 1).getMessageId());
+        return new MessagePage(messages, nextCursor);
+    }
+
+    /**
+     * Visit every message in message id order, read in seek pages of MAX_PAGE_SIZE messages.
+     * Each page is its own short query, so the connection goes back to the pool between pages instead of
+     * being held while a slow client consumes the messages, and memory use does not grow with the table.
+     * Messages inserted or deleted during the walk may or may not be visited, as with paging by hand.
+     * @param action called once per message, on the calling thread.
+     */
+    public void forEachMessage(Consumer<Message> action){
+        int after = 0;
+        List<Message> messages;
+        do {
+            messages = this.messageRepository.findByMessageIdGreaterThanOrderByMessageIdAsc(after, PageRequest.of(0, MAX_PAGE_SIZE));
+            for (Message message : messages)
+                action.accept(message);
+            if (!messages.isEmpty())
+                after = messages.get(messages.size() - 1).getMessageId();
+        } while (messages.size() == MAX_PAGE_SIZE);
+    }
+
+    /**
+     * Get a specific message by message id, through the MessageCache.
      * @param id, message id
      * @return Message queried. Null if id not exist.
      */
     public Message getMessageById(int id) throws MessageIdNotExistsException{
-        Optional<Message> optionMessage = this.messageRepository.findById(id);
-        if(!optionMessage.isPresent()){
-            throw new MessageIdNotExistsException("The message id does not exist.");
+        Message message = this.messageCache.get(id, messageId -> this.messageRepository.findById(messageId).orElse(null));
+        if(message == null){
+            throw MESSAGE_NOT_FOUND;
         }
-        return optionMessage.get();
+        return message;
     }
 
     /**
-     * Delete a specific message by message id.
+     * Delete a specific message by message id, with a single DELETE statement.
+     * The statement returns the author of the deleted row, so the deleted event always carries it, also when
+     * the author's timeline is being loaded and does not know the message yet.
      * @param id, message id.
      * @return number of records that been deleted.
      *  - 1 if deleted 1.
      *  - 0 if id not exist.
      */
     public int deleteMessageById(int id) {
-        Optional<Message> optionalMessage = this.messageRepository.findById(id);
-        
-        if (!optionalMessage.isPresent()) {
-            return 0;
-        } else {
-            this.messageRepository.deleteById(id);
-            return 1;
+        List<Integer> authors = this.messageRepository.deleteByMessageIdReturningPostedBy(id);
+        if (!authors.isEmpty()) {
+            this.messageCache.invalidate(id);
+            this.eventPublisher.publishEvent(MessageEvent.deleted(id, authors.get(0)));
         }
+        return authors.size();
     }
 
     /**
-     * Update a specific message text by given message id.
+     * Update a specific message text by given message id, with a single UPDATE statement.
+     * The statement returns the updated row, which the updated event carries, so nothing is read afterwards.
      * Message should exist.
      * message text should not over 255 characters.
      * @param id the message id.
@@ -94,28 +309,176 @@ public class MessageService {
      */
     public int updateMessageText(int id, String messageText) throws MessageTextException, MessageIdNotExistsException {
         
-        if(messageText == null || messageText.length() < 1 || messageText.length() > 255 || messageText.equals("")) {
-            throw new MessageTextException("Message text not exist or empty or over 255 characters.");
+        if(!isValidMessageText(messageText)) {
+            throw INVALID_UPDATE_TEXT;
         }
 
-        Optional<Message> optionalMessage = this.messageRepository.findById(id);
-        
-        if (!optionalMessage.isPresent()) {
-            throw new MessageIdNotExistsException("The message id does not exist.");
-        } else {
-            Message message = optionalMessage.get();
-            message.setMessageText(messageText);
-            this.messageRepository.save(message);
-            return 1;
-        }
+        List<Message> updated = this.messageRepository.updateMessageTextReturning(id, messageText);
+        if (updated.isEmpty())
+            throw MESSAGE_NOT_FOUND;
+        this.messageCache.updateText(id, messageText);
+        this.eventPublisher.publishEvent(MessageEvent.updated(updated.get(0)));
+        return updated.size();
     }
 
     /**
-     * get all messages belong to a soecific account id.
+     * get all messages belong to a soecific account id, through the TimelineCache.
      * @param accoundId
-     * @return List<Message> contains all messages by a spcecific account id. Could be empty.
+     * @return List<Message> contains all messages by a spcecific account id, in message id order. Could be empty.
      */
     public List<Message> getAllMessagesByAccountId(int accoundId){
-        return this.messageRepository.findByPostedBy(accoundId);
+        return this.timelineCache.get(accoundId, this.messageRepository::findByPostedBy);
+    }
+
+    /**
+     * Get one page of the messages of a specific account id, newest first.
+     * Pages are read with a seek on (timePostedEpoch, messageId), so every page costs the same.
+     * @param accountId the account id.
+     * @param before the nextCursor of the previous page, null for the first page.
+     * @param limit the page size, between 1 and MAX_PAGE_SIZE.
+     * @return MessagePage with at most limit messages, and the cursor of the next page if the page is full.
+     * @throws InvalidPageRequestException if the cursor is malformed or the page size is out of range.
+     */
+    public MessagePage getMessagePageByAccountId(int accountId, String before, int limit) throws InvalidPageRequestException{
+        if (limit < 1 || limit > MAX_PAGE_SIZE)
+            throw INVALID_PAGE_SIZE;
+
+        List<Message> messages;
+        if (before == null) {
+            messages = this.messageRepository.findByPostedByOrderByTimePostedEpochDescMessageIdDesc(accountId, PageRequest.of(0, limit));
+        } else {
+            int separator = before.indexOf(':');
+            if (separator < 0)
+                throw MALFORMED_CURSOR;
+            try {
+                long timePostedEpoch = Long.parseLong(before.substring(0, separator));
+                int messageId = Integer.parseInt(before.substring(separator + 1));
+                messages = this.messageRepository.findByPostedByBefore(accountId, timePostedEpoch, messageId, PageRequest.of(0, limit));
+            } catch (NumberFormatException e) {
+                throw MALFORMED_CURSOR;
+            }
+        }
+
+        String nextCursor = null;
+        if (messages.size() == limit) {
+            Message last = messages.get(messages.size() - 1);
+            nextCursor = last.getTimePostedEpoch() + ":" + last.getMessageId();
+        }
+        return new MessagePage(messages, nextCursor);
+    }
+
+    /**
+     * Get the newest messages of several accounts at once, to build a feed in one call.
+     * Accounts whose timeline is in the TimelineCache get a slice of its newest first view, without a copy;
+     * all the others are read with one findNewestByPostedByIn, which keeps the newest limit messages of each.
+     * @param accountIds the account ids, at most MAX_PAGE_SIZE. Null and repeated ids are skipped.
+     * @param limit the number of messages per account, between 1 and MAX_PAGE_SIZE.
+     * @param merged whether to also merge the accounts into one list of the newest limit messages overall.
+     * @return AccountTimelines with, for every account in request order, its newest limit messages ordered by
+     *  timePostedEpoch then message id, descending, and the merged list in the same order if asked for.
+     * @throws InvalidPageRequestException if there are more than MAX_PAGE_SIZE ids or the limit is out of range.
+     */
+    public AccountTimelines getNewestMessagesByAccountIds(List<Integer> accountIds, int limit, boolean merged)
+            throws InvalidPageRequestException{
+        if (accountIds.size() > MAX_PAGE_SIZE)
+            throw TOO_MANY_ACCOUNTS;
+        if (limit < 1 || limit > MAX_PAGE_SIZE)
+            throw INVALID_PAGE_SIZE;
+
+        Map<Integer, List<Message>> timelines = new LinkedHashMap<>();
+        Set<Integer> missing = new HashSet<>();
+        for (Integer accountId : accountIds) {
+            if (accountId == null || timelines.containsKey(accountId))
+                continue;
+            List<Message> cached = this.timelineCache.getNewestIfPresent(accountId, limit);
+            if (cached == null) {
+                missing.add(accountId);
+                timelines.put(accountId, new ArrayList<>());
+            } else {
+                timelines.put(accountId, cached);
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (Message message : this.messageRepository.findNewestByPostedByIn(missing, limit))
+                timelines.get(message.getPostedBy()).add(message);
+            for (Integer accountId : missing)
+                timelines.get(accountId).sort(TimelineCache.NEWEST_FIRST);
+        }
+        return new AccountTimelines(timelines, merged ? mergeNewestFirst(timelines.values(), limit) : null);
+    }
+
+    /**
+     * Merge lists that are each newest first into the newest limit messages overall, with a heap holding the
+     * next message of every list: O(limit log k) for k lists.
+     */
+    private static List<Message> mergeNewestFirst(Collection<List<Message>> lists, int limit){
+        PriorityQueue<Cursor> heads = new PriorityQueue<>(Math.max(1, lists.size()),
+                (a, b) -> TimelineCache.NEWEST_FIRST.compare(a.head(), b.head()));
+        for (List<Message> list : lists) {
+            if (!list.isEmpty())
+                heads.add(new Cursor(list));
+        }
+        List<Message> merged = new ArrayList<>();
+        while (merged.size() < limit && !heads.isEmpty()) {
+            Cursor newest = heads.poll();
+            merged.add(newest.head());
+            if (++newest.position < newest.list.size())
+                heads.add(newest);
+        }
+        return merged;
+    }
+
+    /**
+     * A position in one of the lists of mergeNewestFirst.
+     */
+    private static final class Cursor {
+        private final List<Message> list;
+        private int position;
+
+        Cursor(List<Message> list){
+            this.list = list;
+        }
+
+        Message head(){
+            return list.get(position);
+        }
+    }
+
+    /**
+     * Search the message text through the MessageSearchIndex.
+     * Matches contain every word of the query, ignoring case, and come best match first.
+     * The messages are then read through the MessageCache, with one findAllById for the rest.
+     * @param query the words to look for.
+     * @param cursor the nextCursor of the previous page, null for the first page.
+     * @param limit the page size, between 1 and MAX_PAGE_SIZE.
+     * @return MessagePage with at most limit messages, and the cursor of the next page if there are more matches.
+     * @throws InvalidPageRequestException if the query has no words, the cursor is malformed, the page size is
+     *  out of range, or the page is deeper than MAX_SEARCH_DEPTH matches.
+     */
+    public MessagePage searchMessages(String query, String cursor, int limit) throws InvalidPageRequestException{
+        if (MessageSearchIndex.tokenize(query).isEmpty())
+            throw EMPTY_QUERY;
+        if (limit < 1 || limit > MAX_PAGE_SIZE)
+            throw INVALID_PAGE_SIZE;
+        int offset;
+        try {
+            offset = cursor == null ? 0 : Integer.parseInt(cursor);
+        } catch (NumberFormatException e) {
+            throw MALFORMED_CURSOR;
+        }
+        if (offset < 0 || offset > MAX_SEARCH_DEPTH - limit)
+            throw SEARCH_TOO_DEEP;
+
+        int[] ids = this.messageSearchIndex.search(query, offset, limit + 1);
+        List<Integer> pageIds = new ArrayList<>(Math.min(ids.length, limit));
+        for (int i = 0; i < ids.length && i < limit; i++)
+            pageIds.add(ids[i]);
+        List<Message> messages = new ArrayList<>(pageIds.size());
+        for (Message message : getMessagesByIds(pageIds)) {
+            if (message != null)
+                messages.add(message);
+        }
+        String nextCursor = ids.length > limit && offset < MAX_SEARCH_DEPTH - limit ? String.valueOf(offset + limit) : null;
+        return new MessagePage(messages, nextCursor);
     }
 }
@@ -1,19 +1,26 @@
 drop table if exists message;
 drop table if exists account;
+drop sequence if exists message_seq;
+drop sequence if exists account_seq;
+-- Ids are allocated by Hibernate's pooled optimizer: the increment must equal socialmedia.id.allocation_size
+create sequence account_seq start with 1 increment by 50;
+create sequence message_seq start with 1 increment by 50;
 create table account (
-    accountId int primary key auto_increment,
+    accountId int primary key,
     username varchar(255) not null unique,
     password varchar(255)
 );
 create table message (
-    messageId int primary key auto_increment,
+    messageId int primary key,
     postedBy int,
     messageText varchar(255),
-    timePostedEpoch bigint,
+    timePostedEpoch bigint not null,
     foreign key (postedBy) references account(accountId)
 );
+-- Serves account timelines newest-first, and the seek on (timePostedEpoch, messageId) used to page them
+create index message_postedBy_timeline on message (postedBy, timePostedEpoch desc, messageId desc);
 
--- Starting test values with ids of 9999 to avoid test issues
+-- Starting test values with ids of 9999 to avoid test issues, generated ids skip 9000 to 9999
 insert into account values (9999, 'testuser1', 'password');
 insert into account values (9998, 'testuser2', 'password');
 insert into account values (9997, 'testuser3', 'password');
@@ -0,0 +1,24 @@
+-- Schema of the file-backed database of the prod profile, run on every startup.
+-- Every statement is idempotent and nothing is dropped, so existing data is kept. Schema changes are added
+-- at the end as further idempotent statements (alter table ... add column if not exists, ...).
+-- Ids are allocated by Hibernate's pooled optimizer: the increment must equal socialmedia.id.allocation_size
+create sequence if not exists account_seq start with 1 increment by 50;
+create sequence if not exists message_seq start with 1 increment by 50;
+create table if not exists account (
+    accountId int primary key,
+    username varchar(255) not null unique,
+    password varchar(255)
+);
+create table if not exists message (
+    messageId int primary key,
+    postedBy int,
+    messageText varchar(255),
+    timePostedEpoch bigint not null,
+    foreign key (postedBy) references account(accountId)
+);
+-- Tables created before timePostedEpoch was required: rows without one sort as the oldest, so the
+-- timeline seek on (timePostedEpoch, messageId) reaches them
+update message set timePostedEpoch = 0 where timePostedEpoch is null;
+alter table message alter column timePostedEpoch set not null;
+-- Serves account timelines newest-first, and the seek on (timePostedEpoch, messageId) used to page them
+create index if not exists message_postedBy_timeline on message (postedBy, timePostedEpoch desc, messageId desc);
@@ -0,0 +1,98 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+import com.example.dto.BatchItemResult;
+import com.example.entity.Message;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class BatchMessagesTest {
+    ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+
+    /**
+     * Before every test, reset the database, restart the app, and create a new webClient and ObjectMapper
+     * for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        String[] args = new String[] {};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        Thread.sleep(500);
+        SpringApplication.exit(app);
+    }
+
+    /**
+     * Sending an http request to POST localhost:8080/messages/batch with one valid message, one blank message
+     * and one message from a user that doesnt exist in db
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: one result per message, 200 with the created message for the valid one, 400 for the others
+     */
+    @Test
+    public void createMessageBatchReportsEachItem() throws IOException, InterruptedException {
+        String json = "[{\"postedBy\":9999,\"messageText\": \"hello batch\",\"timePostedEpoch\": 1669947792},"
+                + "{\"postedBy\":9999,\"messageText\": \"\",\"timePostedEpoch\": 1669947792},"
+                + "{\"postedBy\":5050,\"messageText\": \"hello batch\",\"timePostedEpoch\": 1669947792}]";
+        HttpRequest postRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/batch"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> response = webClient.send(postRequest, HttpResponse.BodyHandlers.ofString());
+        int status = response.statusCode();
+        Assertions.assertEquals(200, status, "Expected Status Code 200 - Actual Code was: " + status);
+        List<BatchItemResult> results = objectMapper.readValue(response.body(), new TypeReference<List<BatchItemResult>>(){});
+        Assertions.assertEquals(3, results.size());
+        Assertions.assertEquals(200, results.get(0).getStatus());
+        Message expectedMessage = new Message(1, 9999, "hello batch", 1669947792L);
+        Assertions.assertEquals(expectedMessage, results.get(0).getMessage());
+        Assertions.assertEquals(400, results.get(1).getStatus());
+        Assertions.assertEquals(400, results.get(2).getStatus());
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/messages?ids=9999,100,9997 (message 100 does not exist)
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the messages in request order, null for the id that does not exist
+     */
+    @Test
+    public void getMessagesByIds() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages?ids=9999,100,9997"))
+                .build();
+        HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+        int status = response.statusCode();
+        Assertions.assertEquals(200, status, "Expected Status Code 200 - Actual Code was: " + status);
+        List<Message> actualResult = objectMapper.readValue(response.body(), new TypeReference<List<Message>>(){});
+        Assertions.assertEquals(3, actualResult.size());
+        Assertions.assertEquals(new Message(9999, 9999, "test message 1", 1669947792L), actualResult.get(0));
+        Assertions.assertNull(actualResult.get(1));
+        Assertions.assertEquals(new Message(9997, 9997, "test message 2", 1669947792L), actualResult.get(2));
+    }
+}
@@ -0,0 +1,137 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class ConditionalGetTest {
+	ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        String[] args = new String[] {};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+    	Thread.sleep(500);
+    	SpringApplication.exit(app);
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/messages, then again with If-None-Match, then again after
+     * POST localhost:8080/messages
+     *
+     * Expected Response:
+     *  Status Code: 200 with an ETag, then 304 with an empty body, then 200 with another ETag
+     */
+    @Test
+    public void getAllMessagesNotModifiedUntilMessageCreated() throws IOException, InterruptedException {
+        HttpResponse<String> first = get("/messages", "If-None-Match", null);
+        Assertions.assertEquals(200, first.statusCode(), "Expected Status Code 200 - Actual Code was: " + first.statusCode());
+        String etag = first.headers().firstValue("ETag").orElseThrow();
+
+        HttpResponse<String> second = get("/messages", "If-None-Match", etag);
+        Assertions.assertEquals(304, second.statusCode(), "Expected Status Code 304 - Actual Code was: " + second.statusCode());
+        Assertions.assertTrue(second.body().isEmpty(), "Expected Empty Result, but Result was not Empty");
+
+        postMessage(9999, "hello message");
+        HttpResponse<String> third = get("/messages", "If-None-Match", etag);
+        Assertions.assertEquals(200, third.statusCode(), "Expected Status Code 200 - Actual Code was: " + third.statusCode());
+        Assertions.assertNotEquals(etag, third.headers().firstValue("ETag").orElseThrow());
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/messages/9999 with the ETag of its previous response, before
+     * and after PATCH localhost:8080/messages/9999
+     *
+     * Expected Response:
+     *  Status Code: 304 before the update, 200 with the updated message after it
+     */
+    @Test
+    public void getMessageByIdModifiedByUpdate() throws IOException, InterruptedException {
+        String etag = get("/messages/9999", "If-None-Match", null).headers().firstValue("ETag").orElseThrow();
+        Assertions.assertEquals(304, get("/messages/9999", "If-None-Match", etag).statusCode());
+
+        HttpRequest patchRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/9999"))
+                .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"messageText\": \"updated message\"}"))
+                .header("Content-Type", "application/json")
+                .build();
+        webClient.send(patchRequest, HttpResponse.BodyHandlers.ofString());
+
+        HttpResponse<String> response = get("/messages/9999", "If-None-Match", etag);
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+        Assertions.assertEquals("updated message", objectMapper.readTree(response.body()).get("messageText").asText());
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/accounts/9999/messages with the ETag of its previous response,
+     * before and after a message of another account and a message of account 9999 are created
+     *
+     * Expected Response:
+     *  Status Code: 304 until account 9999 posts, then 200
+     */
+    @Test
+    public void getAllMessagesFromUserModifiedOnlyByOwnMessages() throws IOException, InterruptedException {
+        String etag = get("/accounts/9999/messages", "If-None-Match", null).headers().firstValue("ETag").orElseThrow();
+        postMessage(9997, "another account");
+        Assertions.assertEquals(304, get("/accounts/9999/messages", "If-None-Match", etag).statusCode());
+
+        postMessage(9999, "own message");
+        HttpResponse<String> response = get("/accounts/9999/messages", "If-None-Match", etag);
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/messages once the second of startup is over, then again with
+     * If-Modified-Since set to the Last-Modified it returned
+     *
+     * Expected Response:
+     *  Status Code: 200 with Last-Modified, then 304
+     */
+    @Test
+    public void getAllMessagesNotModifiedSince() throws IOException, InterruptedException {
+        Thread.sleep(1100);
+        HttpResponse<String> first = get("/messages", "If-Modified-Since", null);
+        String lastModified = first.headers().firstValue("Last-Modified").orElseThrow();
+        HttpResponse<String> second = get("/messages", "If-Modified-Since", lastModified);
+        Assertions.assertEquals(304, second.statusCode(), "Expected Status Code 304 - Actual Code was: " + second.statusCode());
+    }
+
+    private HttpResponse<String> get(String path, String header, String value) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080" + path));
+        if (value != null)
+            request.header(header, value);
+        return webClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private void postMessage(int postedBy, String messageText) throws IOException, InterruptedException {
+        String json = "{\"postedBy\":" + postedBy + ",\"messageText\": \"" + messageText + "\",\"timePostedEpoch\": 1669947792}";
+        HttpRequest postMessageRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> response = webClient.send(postMessageRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+    }
+}
@@ -0,0 +1,142 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+import com.example.entity.Message;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class CreateMessageBatchedTest {
+    ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+
+    /**
+     * Before every test, start the app with the write-behind ingest queue enabled, and create a new webClient
+     * and ObjectMapper for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        String[] args = new String[] {"--socialmedia.ingest.enabled=true", "--socialmedia.ingest.batch-size=8"};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        Thread.sleep(500);
+        SpringApplication.exit(app);
+    }
+
+    /**
+     * Sending 20 concurrent http requests to POST localhost:8080/messages with valid message credentials
+     *
+     * Expected Response:
+     *  Status Code: 200 for every request
+     *  Response Body: JSON representation of each message, each with its own message id
+     *  All messages are persisted
+     */
+    @Test
+    public void createMessagesConcurrentlySuccessful() throws IOException, InterruptedException {
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            String json = "{\"postedBy\":9999,\"messageText\": \"batched " + i + "\",\"timePostedEpoch\": 1669947792}";
+            HttpRequest postMessageRequest = HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8080/messages"))
+                    .POST(HttpRequest.BodyPublishers.ofString(json))
+                    .header("Content-Type", "application/json")
+                    .build();
+            responses.add(webClient.sendAsync(postMessageRequest, HttpResponse.BodyHandlers.ofString()));
+        }
+        Set<Integer> messageIds = new HashSet<>();
+        for (CompletableFuture<HttpResponse<String>> future : responses) {
+            HttpResponse<String> response = future.join();
+            Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+            Message message = objectMapper.readValue(response.body(), Message.class);
+            Assertions.assertNotNull(message.getMessageId());
+            messageIds.add(message.getMessageId());
+        }
+        Assertions.assertEquals(20, messageIds.size(), "Every message should get its own message id.");
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .build();
+        HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+        List<Message> allMessages = objectMapper.readValue(response.body(), new TypeReference<List<Message>>(){});
+        Assertions.assertEquals(23, allMessages.size());
+    }
+
+    /**
+     * Restarting the app with a writer that lingers longer than the result timeout, then sending an http request
+     * to POST localhost:8080/messages with valid message credentials, and GET localhost:8080/messages once the
+     * writer has flushed
+     *
+     * Expected Response:
+     *  Status Code: 503
+     *  The timed out message is never stored
+     */
+    @Test
+    public void createMessageStoreTimedOut() throws IOException, InterruptedException {
+        SpringApplication.exit(app);
+        String[] args = new String[] {"--socialmedia.ingest.enabled=true", "--socialmedia.ingest.batch-size=8",
+                "--socialmedia.ingest.linger-ms=2000", "--socialmedia.ingest.result-timeout-ms=200"};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+
+        String json = "{\"postedBy\":9999,\"messageText\": \"hello message\",\"timePostedEpoch\": 1669947792}";
+        HttpRequest postMessageRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> response = webClient.send(postMessageRequest, HttpResponse.BodyHandlers.ofString());
+        int status = response.statusCode();
+        Assertions.assertEquals(503, status, "Expected Status Code 503 - Actual Code was: " + status);
+
+        Thread.sleep(3000);
+        HttpRequest getAllRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .build();
+        HttpResponse<String> getAllResponse = webClient.send(getAllRequest, HttpResponse.BodyHandlers.ofString());
+        List<Message> messages = objectMapper.readValue(getAllResponse.body(), new TypeReference<List<Message>>(){});
+        Assertions.assertEquals(3, messages.size(), "Expected only the seeded messages, Actual=" + messages);
+    }
+
+    /**
+     * Sending an http request to POST localhost:8080/messages with a user id that doesnt exist in db
+     *
+     * Expected Response:
+     *  Status Code: 400
+     */
+    @Test
+    public void createMessageUserNotInDb() throws IOException, InterruptedException {
+        String json = "{\"postedBy\":5050,\"messageText\": \"hello message\",\"timePostedEpoch\": 1669947792}";
+        HttpRequest postMessageRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> response = webClient.send(postMessageRequest, HttpResponse.BodyHandlers.ofString());
+        int status = response.statusCode();
+        Assertions.assertEquals(400, status, "Expected Status Code 400 - Actual Code was: " + status);
+    }
+}
@@ -13,6 +13,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.boot.SpringApplication;
 import org.springframework.context.ApplicationContext;
 
+import com.example.entity.Account;
 import com.example.entity.Message;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -126,4 +127,36 @@ public class CreateMessageTest {
         int status = response.statusCode();
         Assertions.assertEquals(400, status, "Expected Status Code 400 - Actual Code was: " + status);
     }
+
+    /**
+     * Registering a new account through POST localhost:8080/register, then sending an http request to
+     * POST localhost:8080/messages posted by that account
+     * 
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: JSON representation of message object posted by the new account
+     */
+    @Test
+    public void createMessageByNewlyRegisteredUser() throws IOException, InterruptedException {
+        HttpRequest registerRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/register"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"newuser\",\"password\":\"password\"}"))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> registerResponse = webClient.send(registerRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, registerResponse.statusCode(), "Expected Status Code 200 - Actual Code was: " + registerResponse.statusCode());
+        Account account = objectMapper.readValue(registerResponse.body(), Account.class);
+
+        String json = "{\"postedBy\":" + account.getAccountId() + ",\"messageText\": \"hello message\",\"timePostedEpoch\": 1669947792}";
+        HttpRequest postMessageRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> response = webClient.send(postMessageRequest, HttpResponse.BodyHandlers.ofString());
+        int status = response.statusCode();
+        Assertions.assertEquals(200, status, "Expected Status Code 200 - Actual Code was: " + status);
+        Message actualResult = objectMapper.readValue(response.body(), Message.class);
+        Assertions.assertEquals(account.getAccountId(), actualResult.getPostedBy());
+    }
 }
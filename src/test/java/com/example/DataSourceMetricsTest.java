@@ -0,0 +1,165 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class DataSourceMetricsTest {
+	ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        String[] args = new String[] {};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+    	Thread.sleep(500);
+    	SpringApplication.exit(app);
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/actuator/metrics/hikaricp.connections.acquire after
+     * GET localhost:8080/accounts/9999/messages
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: a COUNT of connection acquisitions above 0
+     */
+    @Test
+    public void connectionPoolWaitTimeExported() throws IOException, InterruptedException {
+        Assertions.assertEquals(200, get("/accounts/9999/messages").statusCode());
+        JsonNode metric = metric("/actuator/metrics/hikaricp.connections.acquire");
+        Assertions.assertTrue(measurement(metric, "COUNT") > 0, "Expected connection acquisitions, Actual=" + metric);
+        metric("/actuator/metrics/hikaricp.connections.active");
+        metric("/actuator/metrics/hikaricp.connections.pending");
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/actuator/metrics/hibernate.cache.query.plan?tag=result:hit
+     * after running the same query twice
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: a COUNT of query plan cache hits above 0
+     */
+    @Test
+    public void queryPlanCacheHitsExported() throws IOException, InterruptedException {
+        get("/accounts/9999/messages?limit=1");
+        get("/accounts/9999/messages?limit=1");
+        JsonNode metric = metric("/actuator/metrics/hibernate.cache.query.plan?tag=result:hit");
+        Assertions.assertTrue(measurement(metric, "COUNT") > 0, "Expected query plan cache hits, Actual=" + metric);
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/actuator/metrics/socialmedia.account-cache.requests?tag=result:hit
+     * after POST localhost:8080/messages twice for the same account
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: a COUNT of account id cache hits above 0
+     */
+    @Test
+    public void accountIdCacheHitsExported() throws IOException, InterruptedException {
+        postMessage(9999);
+        postMessage(9999);
+        JsonNode metric = metric("/actuator/metrics/socialmedia.account-cache.requests?tag=result:hit");
+        Assertions.assertTrue(measurement(metric, "COUNT") > 0, "Expected account id cache hits, Actual=" + metric);
+        metric("/actuator/metrics/socialmedia.account-cache.requests?tag=result:miss");
+        metric("/actuator/metrics/socialmedia.account-cache.size");
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/actuator/metrics/cache.gets?tag=cache:messages&tag=result:hit
+     * after GET localhost:8080/messages/9999 twice, and to GET localhost:8080/actuator/metrics/cache.gets?tag=cache:timelines
+     * after GET localhost:8080/accounts/9999/messages
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: a COUNT of message cache hits above 0, and of timeline cache lookups above 0
+     */
+    @Test
+    public void caffeineCacheStatsExported() throws IOException, InterruptedException {
+        get("/messages/9999");
+        get("/messages/9999");
+        get("/accounts/9999/messages");
+        JsonNode messages = metric("/actuator/metrics/cache.gets?tag=cache:messages&tag=result:hit");
+        Assertions.assertTrue(measurement(messages, "COUNT") > 0, "Expected message cache hits, Actual=" + messages);
+        JsonNode timelines = metric("/actuator/metrics/cache.gets?tag=cache:timelines");
+        Assertions.assertTrue(measurement(timelines, "COUNT") > 0, "Expected timeline cache lookups, Actual=" + timelines);
+        metric("/actuator/metrics/cache.size?tag=cache:messages");
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/actuator/metrics/cache.gets?tag=cache:credentials and
+     * GET localhost:8080/actuator/metrics/executor.completed?tag=name:login after POST localhost:8080/login
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: a COUNT of credential cache lookups above 0, and of completed login checks above 0
+     */
+    @Test
+    public void credentialVerifierMetricsExported() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/login"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"username\": \"testuser1\", \"password\": \"password\"}"))
+                .header("Content-Type", "application/json")
+                .build();
+        Assertions.assertEquals(200, webClient.send(request, HttpResponse.BodyHandlers.ofString()).statusCode());
+        JsonNode credentials = metric("/actuator/metrics/cache.gets?tag=cache:credentials");
+        Assertions.assertTrue(measurement(credentials, "COUNT") > 0, "Expected credential cache lookups, Actual=" + credentials);
+        JsonNode completed = metric("/actuator/metrics/executor.completed?tag=name:login");
+        Assertions.assertTrue(measurement(completed, "COUNT") > 0, "Expected completed login checks, Actual=" + completed);
+        metric("/actuator/metrics/executor.queued?tag=name:login");
+    }
+
+    private void postMessage(int postedBy) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"postedBy\":" + postedBy
+                        + ",\"messageText\": \"hello message\",\"timePostedEpoch\": 1669947792}"))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+    }
+
+    private JsonNode metric(String path) throws IOException, InterruptedException {
+        HttpResponse<String> response = get(path);
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+        return objectMapper.readTree(response.body());
+    }
+
+    private double measurement(JsonNode metric, String statistic){
+        for (JsonNode measurement : metric.get("measurements")) {
+            if (statistic.equals(measurement.get("statistic").asText()))
+                return measurement.get("value").asDouble();
+        }
+        return -1;
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080" + path))
+                .build();
+        return webClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -79,4 +79,32 @@ public class DeleteMessageByMessageIdTest {
         String actualResult = response.body().toString();
         Assertions.assertTrue(actualResult.equals(""), "Expected empty response body, but actually " + actualResult + ".");
     }
+
+    /**
+     * Sending an http request to GET localhost:8080/messages/9999 so the message is cached, then
+     * DELETE localhost:8080/messages/9999, then GET localhost:8080/messages/9999 again
+     * 
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: 
+     */
+    @Test
+    public void deleteMessageThenGetReturnsEmpty() throws IOException, InterruptedException {
+        HttpRequest getRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/9999"))
+                .build();
+        HttpResponse<String> before = webClient.send(getRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertFalse(before.body().isEmpty(), "Expected the message before it is deleted.");
+
+        HttpRequest deleteRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/9999"))
+                .DELETE()
+                .build();
+        HttpResponse<String> deleteResponse = webClient.send(deleteRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals("1", deleteResponse.body());
+
+        HttpResponse<String> after = webClient.send(getRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, after.statusCode(), "Expected Status Code 200 - Actual Code was: " + after.statusCode());
+        Assertions.assertTrue(after.body().isEmpty(), "Expected empty response body, but actually " + after.body() + ".");
+    }
 }
@@ -0,0 +1,185 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+import com.example.entity.Message;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class MessageStreamTest {
+	ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        String[] args = new String[] {};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+    	Thread.sleep(500);
+    	SpringApplication.exit(app);
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/messages/stream, then POST localhost:8080/messages
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: a created event with sequence 1 and the new message as data
+     */
+    @Test
+    public void streamReceivesCreatedMessage() throws Exception {
+        Iterator<String> lines = subscribe("/messages/stream", null);
+        postMessage(9999, "hello message");
+
+        Map<String, String> event = readEvent(lines);
+        Assertions.assertEquals("created", event.get("event"));
+        Assertions.assertEquals(1, sequenceOf(event));
+        JsonNode data = objectMapper.readTree(event.get("data"));
+        Assertions.assertEquals(new Message(1, 9999, "hello message", 1669947792L),
+                objectMapper.treeToValue(data.get("message"), Message.class));
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/messages/stream?postedBy=9997, then POST localhost:8080/messages
+     * for account 9999 and then for account 9997
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: only the created event of the message of account 9997
+     */
+    @Test
+    public void streamFiltersByPostedBy() throws Exception {
+        Iterator<String> lines = subscribe("/messages/stream?postedBy=9997", null);
+        postMessage(9999, "not for this subscriber");
+        postMessage(9997, "for this subscriber");
+
+        Map<String, String> event = readEvent(lines);
+        Assertions.assertEquals(2, sequenceOf(event));
+        Assertions.assertEquals(9997, objectMapper.readTree(event.get("data")).get("postedBy").asInt());
+    }
+
+    /**
+     * Sending http requests to POST localhost:8080/messages, PATCH and DELETE localhost:8080/messages/1, then
+     * GET localhost:8080/messages/stream with the Last-Event-ID of the created event
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the missed updated and deleted events, with sequences 2 and 3
+     */
+    @Test
+    public void streamResumesAfterLastEventId() throws Exception {
+        Iterator<String> first = subscribe("/messages/stream", null);
+        postMessage(9999, "hello message");
+        String createdId = readEvent(first).get("id");
+        HttpRequest patchRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/1"))
+                .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"messageText\": \"updated message\"}"))
+                .header("Content-Type", "application/json")
+                .build();
+        webClient.send(patchRequest, HttpResponse.BodyHandlers.ofString());
+        HttpRequest deleteRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/1"))
+                .DELETE()
+                .build();
+        webClient.send(deleteRequest, HttpResponse.BodyHandlers.ofString());
+
+        Iterator<String> lines = subscribe("/messages/stream", createdId);
+        Map<String, String> updated = readEvent(lines);
+        Assertions.assertEquals("updated", updated.get("event"));
+        Assertions.assertEquals(2, sequenceOf(updated));
+        Assertions.assertEquals("updated message",
+                objectMapper.readTree(updated.get("data")).get("message").get("messageText").asText());
+        Map<String, String> deleted = readEvent(lines);
+        Assertions.assertEquals("deleted", deleted.get("event"));
+        Assertions.assertEquals(3, sequenceOf(deleted));
+        Assertions.assertEquals(1, objectMapper.readTree(deleted.get("data")).get("messageId").asInt());
+    }
+
+    /**
+     * Sending an http request to POST localhost:8080/messages, then GET localhost:8080/messages/stream with the
+     * Last-Event-ID of an earlier boot, and with a Last-Event-ID of this boot that is ahead of the feed
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: a reset event first, not a silent resume
+     */
+    @Test
+    public void streamResetsOnUnknownLastEventId() throws Exception {
+        Iterator<String> first = subscribe("/messages/stream", null);
+        postMessage(9999, "hello message");
+        String createdId = readEvent(first).get("id");
+        String boot = createdId.substring(0, createdId.lastIndexOf('-'));
+
+        Assertions.assertEquals("reset", readEvent(subscribe("/messages/stream", "1-1")).get("event"));
+        Assertions.assertEquals("reset", readEvent(subscribe("/messages/stream", boot + "-5")).get("event"));
+    }
+
+    private Iterator<String> subscribe(String path, String lastEventId) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080" + path))
+                .timeout(Duration.ofSeconds(10))
+                .header("Accept", "text/event-stream");
+        if (lastEventId != null)
+            request.header("Last-Event-ID", lastEventId);
+        HttpResponse<Stream<String>> response = webClient.send(request.build(), HttpResponse.BodyHandlers.ofLines());
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+        return response.body().iterator();
+    }
+
+    private void postMessage(int postedBy, String messageText) throws IOException, InterruptedException {
+        String json = "{\"postedBy\":" + postedBy + ",\"messageText\": \"" + messageText + "\",\"timePostedEpoch\": 1669947792}";
+        HttpRequest postMessageRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> response = webClient.send(postMessageRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+    }
+
+    private long sequenceOf(Map<String, String> event) {
+        String id = event.get("id");
+        return Long.parseLong(id.substring(id.lastIndexOf('-') + 1));
+    }
+
+    /**
+     * Read the fields of the next event, up to the blank line that ends it.
+     */
+    private Map<String, String> readEvent(Iterator<String> lines) {
+        return Assertions.assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            Map<String, String> event = new HashMap<>();
+            while (lines.hasNext()) {
+                String line = lines.next();
+                if (line.isEmpty() && !event.isEmpty())
+                    return event;
+                int colon = line.indexOf(':');
+                if (colon > 0)
+                    event.put(line.substring(0, colon), line.substring(colon + 1));
+            }
+            return event;
+        });
+    }
+}
@@ -0,0 +1,95 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+import com.example.entity.Account;
+import com.example.entity.Message;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class PersistentDatabaseTest {
+	ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+    String[] args;
+
+    /**
+     * Before every test, start the app with the prod profile on a new database file.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        args = new String[] {"--spring.profiles.active=prod",
+                "--socialmedia.db.path=./target/test-db/socialmedia-" + System.nanoTime()};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+    	Thread.sleep(500);
+    	SpringApplication.exit(app);
+    }
+
+    /**
+     * Sending an http request to POST localhost:8080/register and POST localhost:8080/messages, restarting the app
+     * on the same database, then GET localhost:8080/messages and POST localhost:8080/messages
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the message created before the restart and no seeded messages, then a message with a new id
+     */
+    @Test
+    public void messagesSurviveRestart() throws IOException, InterruptedException {
+        Assertions.assertEquals(List.of(), getAllMessages());
+        Account account = objectMapper.readValue(post("/register", "{\"username\": \"persistent\", \"password\": \"password\"}"), Account.class);
+        Message message = objectMapper.readValue(postMessage(account.getAccountId(), "kept message"), Message.class);
+
+        Thread.sleep(500);
+        SpringApplication.exit(app);
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+
+        Assertions.assertEquals(List.of(message), getAllMessages());
+        Message next = objectMapper.readValue(postMessage(account.getAccountId(), "next message"), Message.class);
+        Assertions.assertTrue(next.getMessageId() > message.getMessageId(), "Expected a new id after " + message.getMessageId() + ", Actual=" + next.getMessageId());
+    }
+
+    private List<Message> getAllMessages() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .build();
+        HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+        return objectMapper.readValue(response.body(), new TypeReference<List<Message>>(){});
+    }
+
+    private String postMessage(int postedBy, String messageText) throws IOException, InterruptedException {
+        return post("/messages", "{\"postedBy\":" + postedBy + ",\"messageText\": \"" + messageText + "\",\"timePostedEpoch\": 1669947792}");
+    }
+
+    private String post(String path, String json) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080" + path))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+        return response.body();
+    }
+}
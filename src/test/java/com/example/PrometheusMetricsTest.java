@@ -0,0 +1,86 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+public class PrometheusMetricsTest {
+	ApplicationContext app;
+    HttpClient webClient;
+
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        String[] args = new String[] {};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+    	Thread.sleep(500);
+    	SpringApplication.exit(app);
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/actuator/prometheus after GET localhost:8080/messages/9999
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: histograms of the endpoint and of MessageService.getMessageById, and JVM and pool gauges
+     */
+    @Test
+    public void latencyHistogramsScraped() throws IOException, InterruptedException {
+        send(HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/messages/9999")).build());
+        String scrape = scrape();
+        Assertions.assertTrue(scrape.contains("http_server_requests_seconds_bucket{exception=\"None\",method=\"GET\",outcome=\"SUCCESS\",status=\"200\",uri=\"/messages/{messageId}\""), scrape);
+        Assertions.assertTrue(scrape.contains("socialmedia_service_seconds_bucket{class=\"MessageService\",exception=\"none\",method=\"getMessageById\""), scrape);
+        Assertions.assertTrue(scrape.contains("jvm_gc_memory_allocated_bytes_total"), scrape);
+        Assertions.assertTrue(scrape.contains("hikaricp_connections_active"), scrape);
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/actuator/prometheus after registering an existing username
+     * twice and logging in with a wrong password
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: a count of 2 UsernameAlreadyExistsException, through the cached meters, and of LoginFailedException
+     */
+    @Test
+    public void exceptionsCounted() throws IOException, InterruptedException {
+        send(post("/register", "{\"username\": \"testuser1\", \"password\": \"password\"}"));
+        send(post("/register", "{\"username\": \"testuser1\", \"password\": \"password\"}"));
+        send(post("/login", "{\"username\": \"testuser1\", \"password\": \"wrong password\"}"));
+        String scrape = scrape();
+        Assertions.assertTrue(scrape.contains("socialmedia_service_exceptions_total{class=\"AccountService\",exception=\"UsernameAlreadyExistsException\",method=\"registerService\",} 2.0"), scrape);
+        Assertions.assertTrue(scrape.contains("exception=\"LoginFailedException\""), scrape);
+    }
+
+    private String scrape() throws IOException, InterruptedException {
+        HttpResponse<String> response = send(HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/actuator/prometheus")).build());
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+        return response.body();
+    }
+
+    private HttpRequest post(String path, String json){
+        return HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080" + path))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return webClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,159 @@
+package com.example;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.example.ratelimit.RateLimitFilter;
+import com.example.ratelimit.RateLimitStore;
+import com.example.ratelimit.StripedRateLimitStore;
+
+public class RateLimitStoreTest {
+
+    /**
+     * Taking tokens from a bucket of 3 that refills once a second, then from another key
+     *
+     * Expected Result:
+     *  three are taken, the fourth waits up to a second, and the other key has its own bucket
+     */
+    @Test
+    public void burstThenWait() {
+        RateLimitStore store = new StripedRateLimitStore(1024);
+        for (int i = 0; i < 3; i++)
+            Assertions.assertEquals(0, store.tryAcquire("ip:a", 1_000_000_000L, 3));
+        long wait = store.tryAcquire("ip:a", 1_000_000_000L, 3);
+        Assertions.assertTrue(wait > 0 && wait <= 1_000_000_000L, "wait " + wait);
+        Assertions.assertEquals(0, store.tryAcquire("ip:b", 1_000_000_000L, 3));
+    }
+
+    /**
+     * Two nodes, each with its own RateLimitFilter, sharing one store, with a burst of 2 per IP
+     *
+     * Expected Result:
+     *  the limit holds across the nodes: the third request is rejected with 429, whichever node it reaches
+     */
+    @Test
+    public void limitSharedAcrossNodes() throws Exception {
+        RateLimitStore shared = new StripedRateLimitStore(1024);
+        RateLimitFilter.Limit ipLimit = new RateLimitFilter.Limit(0.001, 2);
+        RateLimitFilter.Limit accountLimit = new RateLimitFilter.Limit(0.001, 2);
+        RateLimitFilter node1 = new RateLimitFilter(shared, ipLimit, accountLimit, new SimpleMeterRegistry());
+        RateLimitFilter node2 = new RateLimitFilter(shared, ipLimit, accountLimit, new SimpleMeterRegistry());
+        Assertions.assertEquals(200, register(node1).getStatus());
+        Assertions.assertEquals(200, register(node2).getStatus());
+        MockHttpServletResponse limited = register(node1);
+        Assertions.assertEquals(429, limited.getStatus());
+        Assertions.assertNotNull(limited.getHeader("Retry-After"));
+    }
+
+    /**
+     * Posting a message charged to account 1 by a first postedBy but bound to 9998 by a duplicate one, then
+     * posting as 9998.0, with a burst of 1 per account
+     *
+     * Expected Result:
+     *  both are charged to the bucket of 9998, as Jackson binds them, so the second is rejected with 429
+     */
+    @Test
+    public void accountKeyedAsJacksonBindsIt() throws Exception {
+        RateLimitFilter node = new RateLimitFilter(new StripedRateLimitStore(1024), new RateLimitFilter.Limit(1000, 1000),
+                new RateLimitFilter.Limit(0.001, 1), new SimpleMeterRegistry());
+        MockHttpServletRequest duplicate = new MockHttpServletRequest("POST", "/messages");
+        duplicate.setContent("{\"postedBy\":1,\"postedBy\":9998,\"messageText\":\"a\"}".getBytes());
+        Assertions.assertEquals(200, filter(node, duplicate).getStatus());
+        MockHttpServletRequest decimal = new MockHttpServletRequest("POST", "/messages");
+        decimal.setContent("{\"postedBy\":9998.0,\"messageText\":\"a\"}".getBytes());
+        Assertions.assertEquals(429, filter(node, decimal).getStatus());
+    }
+
+    /**
+     * Posting a chunked body, with no Content-Length, larger than the part the filter inspects
+     *
+     * Expected Result:
+     *  the request passes with only the IP limit, and the controller receives the whole body unchanged
+     */
+    @Test
+    public void chunkedBodyReadBoundedAndReplayed() throws Exception {
+        RateLimitFilter node = new RateLimitFilter(new StripedRateLimitStore(1024), new RateLimitFilter.Limit(1000, 1000),
+                new RateLimitFilter.Limit(0.001, 1), new SimpleMeterRegistry());
+        byte[] body = ("{\"postedBy\":9998,\"messageText\":\"" + "x".repeat(200_000) + "\"}").getBytes();
+        MockHttpServletRequest chunked = new MockHttpServletRequest("POST", "/messages") {
+            @Override
+            public int getContentLength() {
+                return -1;
+            }
+        };
+        chunked.setContent(body);
+        byte[][] received = new byte[1][];
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        node.doFilter(chunked, response, (request, ignored) -> received[0] = request.getInputStream().readAllBytes());
+        Assertions.assertEquals(200, response.getStatus());
+        Assertions.assertArrayEquals(body, received[0]);
+    }
+
+    /**
+     * Reading the body replayed by the filter with a ReadListener, as a non-blocking servlet reader does
+     *
+     * Expected Result:
+     *  onDataAvailable reads the whole body, then onAllDataRead is called, and onError never
+     */
+    @Test
+    public void replayedBodyReadWithReadListener() throws Exception {
+        RateLimitFilter node = new RateLimitFilter(new StripedRateLimitStore(1024), new RateLimitFilter.Limit(1000, 1000),
+                new RateLimitFilter.Limit(1000, 1000), new SimpleMeterRegistry());
+        byte[] body = "{\"postedBy\":9998,\"messageText\":\"hello message\"}".getBytes();
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/messages");
+        request.setContent(body);
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        List<String> calls = new ArrayList<>();
+        node.doFilter(request, new MockHttpServletResponse(), (filtered, ignored) -> {
+            ServletInputStream in = filtered.getInputStream();
+            in.setReadListener(new ReadListener() {
+                @Override
+                public void onDataAvailable() throws IOException {
+                    byte[] buffer = new byte[16];
+                    int n;
+                    while (in.isReady() && (n = in.read(buffer)) >= 0)
+                        received.write(buffer, 0, n);
+                    calls.add("onDataAvailable");
+                }
+
+                @Override
+                public void onAllDataRead() {
+                    calls.add("onAllDataRead");
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    calls.add("onError");
+                }
+            });
+        });
+        Assertions.assertEquals(List.of("onDataAvailable", "onAllDataRead"), calls);
+        Assertions.assertArrayEquals(body, received.toByteArray());
+    }
+
+    private MockHttpServletResponse filter(RateLimitFilter node, MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        node.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private MockHttpServletResponse register(RateLimitFilter node) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/register");
+        request.setContent("{\"username\": \"user\", \"password\": \"password\"}".getBytes());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        node.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+public class RateLimitTest {
+	ApplicationContext app;
+    HttpClient webClient;
+
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        String[] args = new String[] {"--socialmedia.rate-limit.enabled=true",
+                "--socialmedia.rate-limit.ip.per-second=0.001", "--socialmedia.rate-limit.ip.burst=10",
+                "--socialmedia.rate-limit.account.per-second=0.001", "--socialmedia.rate-limit.account.burst=2"};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+    	Thread.sleep(500);
+    	SpringApplication.exit(app);
+    }
+
+    /**
+     * Sending three http requests to POST localhost:8080/messages as account 9999, then one as account 9998,
+     * with a burst of 2 per account
+     *
+     * Expected Response:
+     *  Status Code: 200, 200, then 429 with a Retry-After header, then 200 for the other account
+     */
+    @Test
+    public void createMessageRateLimitedPerAccount() throws IOException, InterruptedException {
+        String json = "{\"postedBy\":9999,\"messageText\": \"hello message\",\"timePostedEpoch\": 1669947792}";
+        Assertions.assertEquals(200, send(post("/messages", json)).statusCode());
+        Assertions.assertEquals(200, send(post("/messages", json)).statusCode());
+        HttpResponse<String> limited = send(post("/messages", json));
+        Assertions.assertEquals(429, limited.statusCode(), "Expected Status Code 429 - Actual Code was: " + limited.statusCode());
+        Assertions.assertTrue(Long.parseLong(limited.headers().firstValue("Retry-After").orElseThrow()) > 0);
+        HttpResponse<String> other = send(post("/messages", "{\"postedBy\":9998,\"messageText\": \"hello message\",\"timePostedEpoch\": 1669947792}"));
+        Assertions.assertEquals(200, other.statusCode(), "Expected Status Code 200 - Actual Code was: " + other.statusCode());
+    }
+
+    /**
+     * Sending three http requests to POST localhost:8080/login for testuser1 with a wrong password, with a burst
+     * of 2 per account
+     *
+     * Expected Response:
+     *  Status Code: 401, 401, then 429
+     */
+    @Test
+    public void loginRateLimitedPerUsername() throws IOException, InterruptedException {
+        String json = "{\"username\": \"testuser1\", \"password\": \"wrong password\"}";
+        Assertions.assertEquals(401, send(post("/login", json)).statusCode());
+        Assertions.assertEquals(401, send(post("/login", json)).statusCode());
+        HttpResponse<String> limited = send(post("/login", json));
+        Assertions.assertEquals(429, limited.statusCode(), "Expected Status Code 429 - Actual Code was: " + limited.statusCode());
+    }
+
+    /**
+     * Sending eleven http requests to PATCH localhost:8080/messages/9999, then one to GET localhost:8080/messages,
+     * with a burst of 10 per IP
+     *
+     * Expected Response:
+     *  Status Code: 200 ten times, then 429, and reads are not limited
+     */
+    @Test
+    public void writesRateLimitedPerIp() throws IOException, InterruptedException {
+        HttpRequest patch = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/9999"))
+                .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"messageText\": \"updated message\"}"))
+                .header("Content-Type", "application/json")
+                .build();
+        for (int i = 0; i < 10; i++)
+            Assertions.assertEquals(200, send(patch).statusCode());
+        HttpResponse<String> limited = send(patch);
+        Assertions.assertEquals(429, limited.statusCode(), "Expected Status Code 429 - Actual Code was: " + limited.statusCode());
+        HttpResponse<String> read = send(HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/messages")).build());
+        Assertions.assertEquals(200, read.statusCode(), "Expected Status Code 200 - Actual Code was: " + read.statusCode());
+    }
+
+    private HttpRequest post(String path, String json){
+        return HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080" + path))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return webClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
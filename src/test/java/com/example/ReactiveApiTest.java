@@ -0,0 +1,193 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+import com.example.entity.Account;
+import com.example.entity.Message;
+import com.example.service.MessageService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * The endpoints served by ReactiveSocialMediaController, with the app started in the reactive profile.
+ * The streamed lists are read with a page size of 2, so they take several pages.
+ */
+public class ReactiveApiTest {
+	ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        String[] args = new String[] {"--spring.profiles.active=reactive", "--socialmedia.reactive.page-size=2"};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+    	Thread.sleep(500);
+    	SpringApplication.exit(app);
+    }
+
+    /**
+     * Sending http requests to POST localhost:8080/register, then POST localhost:8080/login with the same credentials
+     *
+     * Expected Response:
+     *  Status Code: 200 for both
+     *  Response Body: JSON representation of the new account
+     */
+    @Test
+    public void registerThenLogin() throws IOException, InterruptedException {
+        String json = "{\"username\":\"reactiveuser\",\"password\":\"password\"}";
+        HttpResponse<String> registerResponse = webClient.send(post("/register", json), HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, registerResponse.statusCode(), "Expected Status Code 200 - Actual Code was: " + registerResponse.statusCode());
+        Account registered = objectMapper.readValue(registerResponse.body(), Account.class);
+
+        HttpResponse<String> loginResponse = webClient.send(post("/login", json), HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, loginResponse.statusCode(), "Expected Status Code 200 - Actual Code was: " + loginResponse.statusCode());
+        Assertions.assertEquals(registered, objectMapper.readValue(loginResponse.body(), Account.class));
+
+        HttpResponse<String> duplicateResponse = webClient.send(post("/register", json), HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(409, duplicateResponse.statusCode(), "Expected Status Code 409 - Actual Code was: " + duplicateResponse.statusCode());
+    }
+
+    /**
+     * Sending an http request to POST localhost:8080/messages, then GET localhost:8080/messages
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: JSON list of the seeded messages and the new one, in message id order
+     */
+    @Test
+    public void createMessageThenStreamAllMessages() throws IOException, InterruptedException {
+        String json = "{\"postedBy\":9999,\"messageText\": \"hello message\",\"timePostedEpoch\": 1669947792}";
+        HttpResponse<String> createResponse = webClient.send(post("/messages", json), HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, createResponse.statusCode(), "Expected Status Code 200 - Actual Code was: " + createResponse.statusCode());
+        Assertions.assertEquals(new Message(1, 9999, "hello message", 1669947792L), objectMapper.readValue(createResponse.body(), Message.class));
+
+        HttpResponse<String> response = webClient.send(get("/messages"), HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+        List<Message> expectedResult = new ArrayList<Message>();
+        expectedResult.add(new Message(1, 9999, "hello message", 1669947792L));
+        expectedResult.add(new Message(9996, 9996, "test message 3", 1669947792L));
+        expectedResult.add(new Message(9997, 9997, "test message 2", 1669947792L));
+        expectedResult.add(new Message(9999, 9999, "test message 1", 1669947792L));
+        List<Message> actualResult = objectMapper.readValue(response.body(), new TypeReference<List<Message>>(){});
+        Assertions.assertEquals(expectedResult, actualResult, "Expected="+expectedResult + ", Actual="+actualResult);
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/messages accepting application/x-ndjson
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: one JSON message per line, in message id order
+     */
+    @Test
+    public void streamAllMessagesAsNdjson() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .header("Accept", "application/x-ndjson")
+                .build();
+        HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+        List<Message> actualResult = new ArrayList<Message>();
+        for (String line : response.body().split("\n"))
+            actualResult.add(objectMapper.readValue(line, Message.class));
+        List<Message> expectedResult = new ArrayList<Message>();
+        expectedResult.add(new Message(9996, 9996, "test message 3", 1669947792L));
+        expectedResult.add(new Message(9997, 9997, "test message 2", 1669947792L));
+        expectedResult.add(new Message(9999, 9999, "test message 1", 1669947792L));
+        Assertions.assertEquals(expectedResult, actualResult, "Expected="+expectedResult + ", Actual="+actualResult);
+    }
+
+    /**
+     * Sending http requests to PATCH, GET and DELETE localhost:8080/messages/9999, then GET localhost:8080/messages/9999
+     *
+     * Expected Response:
+     *  Status Code: 200 for all
+     *  Response Body: 1 for the update and the delete, the updated message, then empty
+     */
+    @Test
+    public void updateGetDeleteMessage() throws IOException, InterruptedException {
+        HttpRequest patchRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/9999"))
+                .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"messageText\": \"updated message\"}"))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> patchResponse = webClient.send(patchRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, patchResponse.statusCode(), "Expected Status Code 200 - Actual Code was: " + patchResponse.statusCode());
+        Assertions.assertEquals("1", patchResponse.body());
+
+        HttpResponse<String> getResponse = webClient.send(get("/messages/9999"), HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(new Message(9999, 9999, "updated message", 1669947792L), objectMapper.readValue(getResponse.body(), Message.class));
+
+        HttpRequest deleteRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/9999"))
+                .DELETE()
+                .build();
+        HttpResponse<String> deleteResponse = webClient.send(deleteRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, deleteResponse.statusCode(), "Expected Status Code 200 - Actual Code was: " + deleteResponse.statusCode());
+        Assertions.assertEquals("1", deleteResponse.body());
+
+        HttpResponse<String> missingResponse = webClient.send(get("/messages/9999"), HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, missingResponse.statusCode(), "Expected Status Code 200 - Actual Code was: " + missingResponse.statusCode());
+        Assertions.assertTrue(missingResponse.body().isEmpty(), "Expected Empty Result, but Result was not Empty");
+    }
+
+    /**
+     * Sending http requests to POST localhost:8080/messages three times for account 9998, then GET localhost:8080/accounts/9998/messages
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: JSON list of the three messages, in message id order, as MessageService.getAllMessagesByAccountId
+     *  returns them to the servlet endpoint
+     */
+    @Test
+    public void streamAllMessagesForUser() throws IOException, InterruptedException {
+        for (int i = 1; i <= 3; i++) {
+            String json = "{\"postedBy\":9998,\"messageText\": \"message " + i + "\",\"timePostedEpoch\": " + (1669947792L + i) + "}";
+            webClient.send(post("/messages", json), HttpResponse.BodyHandlers.ofString());
+        }
+        HttpResponse<String> response = webClient.send(get("/accounts/9998/messages"), HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+        List<Message> actualResult = objectMapper.readValue(response.body(), new TypeReference<List<Message>>(){});
+        List<Message> expectedResult = new ArrayList<Message>();
+        expectedResult.add(new Message(1, 9998, "message 1", 1669947793L));
+        expectedResult.add(new Message(2, 9998, "message 2", 1669947794L));
+        expectedResult.add(new Message(3, 9998, "message 3", 1669947795L));
+        Assertions.assertEquals(expectedResult, actualResult, "Expected="+expectedResult + ", Actual="+actualResult);
+        List<Message> servletResult = app.getBean(MessageService.class).getAllMessagesByAccountId(9998);
+        Assertions.assertEquals(servletResult, actualResult, "Expected="+servletResult + ", Actual="+actualResult);
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080" + path))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080" + path))
+                .build();
+    }
+}
@@ -0,0 +1,47 @@
+package com.example;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.Filter.Result;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.example.logging.RepeatedMessageFilter;
+
+public class RepeatedMessageFilterTest {
+
+    /**
+     * Logging the same failure message 1000 times within a second, with perSecond=20 and sampleEvery=100
+     *
+     * Expected Result:
+     *  the first 20 pass, then one in 100: 29 in total
+     */
+    @Test
+    public void repeatedMessageRateLimitedAndSampled() throws InterruptedException {
+        RepeatedMessageFilter filter = RepeatedMessageFilter.createFilter(Level.WARN, 20, 100, Result.NEUTRAL, Result.DENY);
+        // start at the beginning of a second, so the 1000 calls, a few milliseconds, all fall in the same window
+        Thread.sleep(1000 - System.currentTimeMillis() % 1000);
+        long second = System.currentTimeMillis() / 1000;
+        int passed = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (filter.filter(null, Level.WARN, null, "Login failed: {}", "Invalid username or password.") == Result.NEUTRAL)
+                passed++;
+        }
+        Assertions.assertEquals(second, System.currentTimeMillis() / 1000, "Expected the calls to fit in one second");
+        Assertions.assertEquals(29, passed);
+    }
+
+    /**
+     * Logging a storm of one failure message, then another failure message, then an error
+     *
+     * Expected Result:
+     *  the other message and the error are not limited by the storm
+     */
+    @Test
+    public void otherMessagesAndErrorsNotLimited() {
+        RepeatedMessageFilter filter = RepeatedMessageFilter.createFilter(Level.WARN, 1, 0, Result.NEUTRAL, Result.DENY);
+        filter.filter(null, Level.WARN, null, "Login failed: {}", "a");
+        Assertions.assertEquals(Result.DENY, filter.filter(null, Level.WARN, null, "Login failed: {}", "b"));
+        Assertions.assertEquals(Result.NEUTRAL, filter.filter(null, Level.WARN, null, "Register failed: {}", "c"));
+        Assertions.assertEquals(Result.NEUTRAL, filter.filter(null, Level.ERROR, null, "Login failed: {}", "d"));
+    }
+}
@@ -15,6 +15,8 @@ import org.junit.jupiter.api.Test;
 import org.springframework.boot.SpringApplication;
 import org.springframework.context.ApplicationContext;
 
+import com.example.dto.AccountTimelines;
+import com.example.dto.MessagePage;
 import com.example.entity.Message;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -83,4 +85,229 @@ public class RetrieveAllMessagesForUserTest {
         List<Message> actualResult = objectMapper.readValue(response.body().toString(), new TypeReference<List<Message>>(){});
         Assertions.assertTrue(actualResult.isEmpty(), "Expected Empty Result, but Result was not Empty");
     }
+
+    /**
+     * Posting three messages for account 9998, then sending http requests to
+     * GET localhost:8080/accounts/9998/messages?limit=2 and following the returned cursor
+     * 
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: JSON representation of pages of messages, newest first, with the next cursor
+     */
+    @Test
+    public void getMessagePagesFromUserNewestFirst() throws IOException, InterruptedException {
+        Message oldest = postMessage("{\"postedBy\":9998,\"messageText\": \"first\",\"timePostedEpoch\": 100}");
+        Message middle = postMessage("{\"postedBy\":9998,\"messageText\": \"second\",\"timePostedEpoch\": 200}");
+        Message newest = postMessage("{\"postedBy\":9998,\"messageText\": \"third\",\"timePostedEpoch\": 200}");
+
+        HttpRequest firstRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/accounts/9998/messages?limit=2"))
+                .build();
+        HttpResponse<String> firstResponse = webClient.send(firstRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, firstResponse.statusCode(), "Expected Status Code 200 - Actual Code was: " + firstResponse.statusCode());
+        MessagePage firstPage = objectMapper.readValue(firstResponse.body(), MessagePage.class);
+        List<Message> expectedFirst = new ArrayList<Message>();
+        expectedFirst.add(newest);
+        expectedFirst.add(middle);
+        Assertions.assertEquals(expectedFirst, firstPage.getMessages(), "Expected="+expectedFirst + ", Actual="+firstPage.getMessages());
+        Assertions.assertNotNull(firstPage.getNextCursor());
+
+        HttpRequest secondRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/accounts/9998/messages?limit=2&before=" + firstPage.getNextCursor()))
+                .build();
+        HttpResponse<String> secondResponse = webClient.send(secondRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, secondResponse.statusCode(), "Expected Status Code 200 - Actual Code was: " + secondResponse.statusCode());
+        MessagePage secondPage = objectMapper.readValue(secondResponse.body(), MessagePage.class);
+        List<Message> expectedSecond = new ArrayList<Message>();
+        expectedSecond.add(oldest);
+        Assertions.assertEquals(expectedSecond, secondPage.getMessages(), "Expected="+expectedSecond + ", Actual="+secondPage.getMessages());
+        Assertions.assertNull(secondPage.getNextCursor());
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/accounts/9999/messages?limit=2&before=abc
+     * 
+     * Expected Response:
+     *  Status Code: 400
+     */
+    @Test
+    public void getMessagePageFromUserMalformedCursor() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/accounts/9999/messages?limit=2&before=abc"))
+                .build();
+        HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+        int status = response.statusCode();
+        Assertions.assertEquals(400, status, "Expected Status Code 400 - Actual Code was: " + status);
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/accounts/9999/messages, then POST a message for 9999,
+     * PATCH localhost:8080/messages/9999 and DELETE the new message, reading the messages again after each change
+     * 
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the messages of the account as they are after each change, in message id order
+     */
+    @Test
+    public void getAllMessagesFromUserAfterChanges() throws IOException, InterruptedException {
+        List<Message> expectedResult = new ArrayList<Message>();
+        expectedResult.add(new Message(9999, 9999, "test message 1", 1669947792L));
+        Assertions.assertEquals(expectedResult, getMessagesOfUser(9999));
+
+        Message created = postMessage("{\"postedBy\":9999,\"messageText\": \"hello message\",\"timePostedEpoch\": 1669947793}");
+        expectedResult.add(0, created);
+        Assertions.assertEquals(expectedResult, getMessagesOfUser(9999));
+
+        HttpRequest patchRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/9999"))
+                .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"messageText\": \"updated message\"}"))
+                .header("Content-Type", "application/json")
+                .build();
+        webClient.send(patchRequest, HttpResponse.BodyHandlers.ofString());
+        expectedResult.set(1, new Message(9999, 9999, "updated message", 1669947792L));
+        Assertions.assertEquals(expectedResult, getMessagesOfUser(9999));
+
+        HttpRequest deleteRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/" + created.getMessageId()))
+                .DELETE()
+                .build();
+        webClient.send(deleteRequest, HttpResponse.BodyHandlers.ofString());
+        expectedResult.remove(0);
+        Assertions.assertEquals(expectedResult, getMessagesOfUser(9999));
+    }
+
+    /**
+     * Posting two messages for account 9998, reading GET localhost:8080/accounts/9999/messages so that account
+     * 9999 is cached, then sending an http request to
+     * GET localhost:8080/accounts/messages?ids=9999,9998,9997,5050&limit=2&merged=true
+     * 
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the two newest messages of each account, cached or not, in request order, and the two
+     *  newest of all of them merged
+     */
+    @Test
+    public void getNewestMessagesFromUsers() throws IOException, InterruptedException {
+        Message older = postMessage("{\"postedBy\":9998,\"messageText\": \"first\",\"timePostedEpoch\": 1669947791}");
+        Message newer = postMessage("{\"postedBy\":9998,\"messageText\": \"second\",\"timePostedEpoch\": 1669947800}");
+        getMessagesOfUser(9999);
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/accounts/messages?ids=9999,9998,9997,5050&limit=2&merged=true"))
+                .build();
+        HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+        AccountTimelines actualResult = objectMapper.readValue(response.body(), AccountTimelines.class);
+
+        Message cached = new Message(9999, 9999, "test message 1", 1669947792L);
+        Assertions.assertEquals(List.of(9999, 9998, 9997, 5050), new ArrayList<>(actualResult.getTimelines().keySet()));
+        Assertions.assertEquals(List.of(cached), actualResult.getTimelines().get(9999));
+        Assertions.assertEquals(List.of(newer, older), actualResult.getTimelines().get(9998));
+        Assertions.assertEquals(List.of(new Message(9997, 9997, "test message 2", 1669947792L)), actualResult.getTimelines().get(9997));
+        Assertions.assertTrue(actualResult.getTimelines().get(5050).isEmpty());
+        Assertions.assertEquals(List.of(newer, cached), actualResult.getMerged(), "Expected merged newest first, Actual="+actualResult.getMerged());
+    }
+
+    /**
+     * Reading GET localhost:8080/accounts/9998/messages so that account 9998 is cached, posting three messages
+     * for it whose ids are not in timePostedEpoch order, then sending an http request to
+     * GET localhost:8080/accounts/messages?ids=9998&limit=2 before and after a fourth message
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the two newest messages by timePostedEpoch, also after the cached timeline changed
+     */
+    @Test
+    public void getNewestMessagesFromCachedUserInEpochOrder() throws IOException, InterruptedException {
+        getMessagesOfUser(9998);
+        Message newest = postMessage("{\"postedBy\":9998,\"messageText\": \"newest\",\"timePostedEpoch\": 1669947900}");
+        postMessage("{\"postedBy\":9998,\"messageText\": \"oldest\",\"timePostedEpoch\": 1669947700}");
+        Message middle = postMessage("{\"postedBy\":9998,\"messageText\": \"middle\",\"timePostedEpoch\": 1669947800}");
+        Assertions.assertEquals(List.of(newest, middle), getNewest(9998, 2));
+
+        Message latest = postMessage("{\"postedBy\":9998,\"messageText\": \"latest\",\"timePostedEpoch\": 1669948000}");
+        Assertions.assertEquals(List.of(latest, newest), getNewest(9998, 2));
+    }
+
+    private List<Message> getNewest(int accountId, int limit) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/accounts/messages?ids=" + accountId + "&limit=" + limit))
+                .build();
+        HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+        return objectMapper.readValue(response.body(), AccountTimelines.class).getTimelines().get(accountId);
+    }
+
+    /**
+     * Posting a message for account 9999 without a timePostedEpoch, alone and in a batch, then sending an http
+     * request to GET localhost:8080/accounts/messages?ids=9999&limit=5&merged=true
+     * 
+     * Expected Response:
+     *  Status Code: 400 for the message, a rejected item for the batch, then 200 with only the seeded message
+     */
+    @Test
+    public void getNewestMessagesFromUsersAfterMessageWithoutEpoch() throws IOException, InterruptedException {
+        HttpRequest postRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"postedBy\":9999,\"messageText\": \"no epoch\"}"))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> postResponse = webClient.send(postRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(400, postResponse.statusCode(), "Expected Status Code 400 - Actual Code was: " + postResponse.statusCode());
+
+        HttpRequest batchRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/batch"))
+                .POST(HttpRequest.BodyPublishers.ofString("[{\"postedBy\":9999,\"messageText\": \"no epoch\"}]"))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> batchResponse = webClient.send(batchRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, batchResponse.statusCode(), "Expected Status Code 200 - Actual Code was: " + batchResponse.statusCode());
+        Assertions.assertEquals(400, objectMapper.readTree(batchResponse.body()).get(0).get("status").asInt(), batchResponse.body());
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/accounts/messages?ids=9999&limit=5&merged=true"))
+                .build();
+        HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+        AccountTimelines actualResult = objectMapper.readValue(response.body(), AccountTimelines.class);
+        List<Message> expectedResult = List.of(new Message(9999, 9999, "test message 1", 1669947792L));
+        Assertions.assertEquals(expectedResult, actualResult.getTimelines().get(9999));
+        Assertions.assertEquals(expectedResult, actualResult.getMerged());
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/accounts/messages?ids=9999&limit=0
+     * 
+     * Expected Response:
+     *  Status Code: 400
+     */
+    @Test
+    public void getNewestMessagesFromUsersInvalidLimit() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/accounts/messages?ids=9999&limit=0"))
+                .build();
+        HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+        int status = response.statusCode();
+        Assertions.assertEquals(400, status, "Expected Status Code 400 - Actual Code was: " + status);
+    }
+
+    private List<Message> getMessagesOfUser(int accountId) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/accounts/" + accountId + "/messages"))
+                .build();
+        HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+        return objectMapper.readValue(response.body(), new TypeReference<List<Message>>(){});
+    }
+
+    private Message postMessage(String json) throws IOException, InterruptedException {
+        HttpRequest postMessageRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> response = webClient.send(postMessageRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+        return objectMapper.readValue(response.body(), Message.class);
+    }
 }
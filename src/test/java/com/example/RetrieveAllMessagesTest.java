@@ -1,5 +1,6 @@
 package com.example;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
@@ -7,6 +8,7 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
@@ -15,6 +17,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.boot.SpringApplication;
 import org.springframework.context.ApplicationContext;
 
+import com.example.dto.MessagePage;
 import com.example.entity.Message;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -59,4 +62,152 @@ public class RetrieveAllMessagesTest {
         List<Message> actualResult = objectMapper.readValue(response.body().toString(), new TypeReference<List<Message>>(){});
         Assertions.assertEquals(expectedResult, actualResult, "Expected="+expectedResult + ", Actual="+actualResult);
     }
+
+    /**
+     * Posting a batch of 1000 messages, then sending an http request to GET localhost:8080/messages
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: all 1003 messages once each, in message id order, across the pages the table is read in
+     */
+    @Test
+    public void getAllMessagesAcrossPages() throws IOException, InterruptedException {
+        StringBuilder batch = new StringBuilder("[");
+        for (int i = 0; i < 1000; i++)
+            batch.append(i == 0 ? "" : ",").append("{\"postedBy\":9999,\"messageText\": \"hello message ").append(i).append("\",\"timePostedEpoch\": 1669947792}");
+        HttpRequest batchRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/batch"))
+                .POST(HttpRequest.BodyPublishers.ofString(batch.append("]").toString()))
+                .header("Content-Type", "application/json")
+                .build();
+        Assertions.assertEquals(200, webClient.send(batchRequest, HttpResponse.BodyHandlers.ofString()).statusCode());
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .build();
+        HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+        List<Message> actualResult = objectMapper.readValue(response.body(), new TypeReference<List<Message>>(){});
+        Assertions.assertEquals(1003, actualResult.size());
+        for (int i = 1; i < actualResult.size(); i++)
+            Assertions.assertTrue(actualResult.get(i - 1).getMessageId() < actualResult.get(i).getMessageId(),
+                    "Expected message id order, Actual=" + actualResult.get(i - 1) + " before " + actualResult.get(i));
+    }
+
+    /**
+     * Sending http requests to GET localhost:8080/messages?limit=2, then following the returned cursor
+     * 
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: JSON representation of a page of messages, in message id order, with the next cursor
+     */
+    @Test
+    public void getMessagePagesFollowingCursor() throws IOException, InterruptedException {
+        HttpRequest firstRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages?limit=2"))
+                .build();
+        HttpResponse<String> firstResponse = webClient.send(firstRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, firstResponse.statusCode(), "Expected Status Code 200 - Actual Code was: " + firstResponse.statusCode());
+        MessagePage firstPage = objectMapper.readValue(firstResponse.body(), MessagePage.class);
+        List<Message> expectedFirst = new ArrayList<Message>();
+        expectedFirst.add(new Message(9996, 9996, "test message 3", 1669947792L));
+        expectedFirst.add(new Message(9997, 9997, "test message 2", 1669947792L));
+        Assertions.assertEquals(expectedFirst, firstPage.getMessages(), "Expected="+expectedFirst + ", Actual="+firstPage.getMessages());
+        Assertions.assertEquals("9997", firstPage.getNextCursor());
+
+        HttpRequest secondRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages?limit=2&after=" + firstPage.getNextCursor()))
+                .build();
+        HttpResponse<String> secondResponse = webClient.send(secondRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, secondResponse.statusCode(), "Expected Status Code 200 - Actual Code was: " + secondResponse.statusCode());
+        MessagePage secondPage = objectMapper.readValue(secondResponse.body(), MessagePage.class);
+        List<Message> expectedSecond = new ArrayList<Message>();
+        expectedSecond.add(new Message(9999, 9999, "test message 1", 1669947792L));
+        Assertions.assertEquals(expectedSecond, secondPage.getMessages(), "Expected="+expectedSecond + ", Actual="+secondPage.getMessages());
+        Assertions.assertNull(secondPage.getNextCursor());
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/messages?limit=0
+     * 
+     * Expected Response:
+     *  Status Code: 400
+     */
+    @Test
+    public void getMessagePageInvalidLimit() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages?limit=0"))
+                .build();
+        HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+        int status = response.statusCode();
+        Assertions.assertEquals(400, status, "Expected Status Code 400 - Actual Code was: " + status);
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/messages accepting application/x-ndjson
+     * 
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: one JSON message per line, in message id order
+     */
+    @Test
+    public void streamAllMessagesAsNdjson() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .header("Accept", "application/x-ndjson")
+                .build();
+        HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+        int status = response.statusCode();
+        Assertions.assertEquals(200, status, "Expected Status Code 200 - Actual Code was: " + status);
+        List<Message> expectedResult = new ArrayList<Message>();
+        expectedResult.add(new Message(9996, 9996, "test message 3", 1669947792L));
+        expectedResult.add(new Message(9997, 9997, "test message 2", 1669947792L));
+        expectedResult.add(new Message(9999, 9999, "test message 1", 1669947792L));
+        List<Message> actualResult = new ArrayList<Message>();
+        for (String line : response.body().split("\n")) {
+            actualResult.add(objectMapper.readValue(line, Message.class));
+        }
+        Assertions.assertEquals(expectedResult, actualResult, "Expected="+expectedResult + ", Actual="+actualResult);
+    }
+
+    /**
+     * Posting a batch of 50 messages, then sending http requests to GET localhost:8080/messages with and without
+     * Accept-Encoding: gzip
+     * 
+     * Expected Response:
+     *  Status Code: 200
+     *  Content-Encoding: gzip when accepted
+     *  Response Body: gzip compressed JSON representation of the same list of messages as the plain response
+     */
+    @Test
+    public void getAllMessagesCompressed() throws IOException, InterruptedException {
+        StringBuilder batch = new StringBuilder("[");
+        for (int i = 0; i < 50; i++)
+            batch.append(i == 0 ? "" : ",").append("{\"postedBy\":9999,\"messageText\": \"hello message ").append(i).append("\",\"timePostedEpoch\": 1669947792}");
+        HttpRequest postRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/batch"))
+                .POST(HttpRequest.BodyPublishers.ofString(batch.append("]").toString()))
+                .header("Content-Type", "application/json")
+                .build();
+        Assertions.assertEquals(200, webClient.send(postRequest, HttpResponse.BodyHandlers.ofString()).statusCode());
+
+        HttpRequest plainRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .build();
+        HttpResponse<String> plainResponse = webClient.send(plainRequest, HttpResponse.BodyHandlers.ofString());
+        List<Message> expectedResult = objectMapper.readValue(plainResponse.body(), new TypeReference<List<Message>>(){});
+        Assertions.assertEquals(53, expectedResult.size());
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .header("Accept-Encoding", "gzip")
+                .build();
+        HttpResponse<byte[]> response = webClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        int status = response.statusCode();
+        Assertions.assertEquals(200, status, "Expected Status Code 200 - Actual Code was: " + status);
+        Assertions.assertEquals("gzip", response.headers().firstValue("Content-Encoding").orElse(null));
+        List<Message> actualResult = objectMapper.readValue(new GZIPInputStream(new ByteArrayInputStream(response.body())),
+                new TypeReference<List<Message>>(){});
+        Assertions.assertEquals(expectedResult, actualResult, "Expected="+expectedResult + ", Actual="+actualResult);
+    }
 }
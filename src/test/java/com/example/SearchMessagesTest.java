@@ -0,0 +1,171 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+import com.example.dto.MessagePage;
+import com.example.entity.Message;
+import com.example.search.MessageSearchIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class SearchMessagesTest {
+	ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+
+    /**
+     * Before every test, reset the database, restart the app and wait for the search index to be rebuilt.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        String[] args = new String[] {};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+        MessageSearchIndex index = app.getBean(MessageSearchIndex.class);
+        for (int i = 0; i < 100 && !index.isReady(); i++)
+            Thread.sleep(50);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+    	Thread.sleep(500);
+    	SpringApplication.exit(app);
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/messages/search?q=TEST+Message&limit=2, then with the
+     * nextCursor it returned
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: messages 9999 and 9997 with a nextCursor, then message 9996 without one
+     */
+    @Test
+    public void searchMessagesPaged() throws IOException, InterruptedException {
+        MessagePage first = search("TEST Message", null, 2, 200);
+        Assertions.assertEquals(List.of(9999, 9997), ids(first));
+        Assertions.assertNotNull(first.getNextCursor());
+
+        MessagePage second = search("TEST Message", first.getNextCursor(), 2, 200);
+        Assertions.assertEquals(List.of(new Message(9996, 9996, "test message 3", 1669947792L)), second.getMessages());
+        Assertions.assertNull(second.getNextCursor());
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/messages/search?q=message+2 (every word must match)
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: message 9997 only
+     */
+    @Test
+    public void searchMessagesMatchesAllWords() throws IOException, InterruptedException {
+        Assertions.assertEquals(List.of(9997), ids(search("message 2", null, 20, 200)));
+        Assertions.assertEquals(List.of(), ids(search("message 4", null, 20, 200)));
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/messages/search?q=zebra after creating two messages that contain
+     * it, one of them several times
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the message with more occurrences first
+     */
+    @Test
+    public void searchMessagesRanked() throws IOException, InterruptedException {
+        int once = postMessage(9999, "a zebra crossing the road today");
+        int often = postMessage(9998, "zebra zebra zebra");
+        Assertions.assertEquals(List.of(often, once), ids(search("zebra", null, 20, 200)));
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/messages/search after a message is created, updated and deleted
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the message is found by its current text only, and not at all once deleted
+     */
+    @Test
+    public void searchMessagesAfterChanges() throws IOException, InterruptedException {
+        int messageId = postMessage(9999, "apples and oranges");
+        Assertions.assertEquals(List.of(messageId), ids(search("apples", null, 20, 200)));
+
+        HttpRequest patchRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/" + messageId))
+                .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"messageText\": \"pears\"}"))
+                .header("Content-Type", "application/json")
+                .build();
+        webClient.send(patchRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(List.of(), ids(search("apples", null, 20, 200)));
+        Assertions.assertEquals(List.of(messageId), ids(search("pears", null, 20, 200)));
+
+        HttpRequest deleteRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/" + messageId))
+                .DELETE()
+                .build();
+        webClient.send(deleteRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(List.of(), ids(search("pears", null, 20, 200)));
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/messages/search with no words, a malformed cursor, or a cursor
+     * so deep that offset + limit overflows
+     *
+     * Expected Response:
+     *  Status Code: 400
+     */
+    @Test
+    public void searchMessagesInvalid() throws IOException, InterruptedException {
+        search(" ?! ", null, 20, 400);
+        search("message", "abc", 20, 400);
+        search("message", null, 0, 400);
+        search("message", "2147483000", 1000, 400);
+    }
+
+    private MessagePage search(String q, String cursor, int limit, int expectedStatus) throws IOException, InterruptedException {
+        String uri = "http://localhost:8080/messages/search?q=" + URLEncoder.encode(q, StandardCharsets.UTF_8)
+                + "&limit=" + limit + (cursor == null ? "" : "&cursor=" + cursor);
+        HttpRequest request = HttpRequest.newBuilder().uri(URI.create(uri)).build();
+        HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+        int status = response.statusCode();
+        Assertions.assertEquals(expectedStatus, status, "Expected Status Code " + expectedStatus + " - Actual Code was: " + status);
+        return status == 200 ? objectMapper.readValue(response.body(), MessagePage.class) : null;
+    }
+
+    private List<Integer> ids(MessagePage page){
+        List<Integer> ids = new ArrayList<>();
+        for (Message message : page.getMessages())
+            ids.add(message.getMessageId());
+        return ids;
+    }
+
+    private int postMessage(int postedBy, String messageText) throws IOException, InterruptedException {
+        String json = "{\"postedBy\":" + postedBy + ",\"messageText\": \"" + messageText + "\",\"timePostedEpoch\": 1669947792}";
+        HttpRequest postMessageRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> response = webClient.send(postMessageRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+        return objectMapper.readValue(response.body(), Message.class).getMessageId();
+    }
+}
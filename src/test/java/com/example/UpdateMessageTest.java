@@ -13,6 +13,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.boot.SpringApplication;
 import org.springframework.context.ApplicationContext;
 
+import com.example.entity.Message;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 public class UpdateMessageTest {
@@ -123,4 +124,34 @@ public class UpdateMessageTest {
         int status = response.statusCode();
         Assertions.assertEquals(400, status, "Expected Status Code 400 - Actual Code was: " + status);
     }
+
+    /**
+     * Sending an http request to GET localhost:8080/messages/9999 so the message is cached, then
+     * PATCH localhost:8080/messages/9999, then GET localhost:8080/messages/9999 again
+     * 
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: JSON representation of the message with the new text
+     */
+    @Test
+    public void updateMessageThenGetReturnsNewText() throws IOException, InterruptedException {
+        HttpRequest getRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/9999"))
+                .build();
+        HttpResponse<String> before = webClient.send(getRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals("test message 1", objectMapper.readValue(before.body(), Message.class).getMessageText());
+
+        HttpRequest patchRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/9999"))
+                .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"messageText\": \"text changed\"}"))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> patchResponse = webClient.send(patchRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, patchResponse.statusCode(), "Expected Status Code 200 - Actual Code was: " + patchResponse.statusCode());
+
+        HttpResponse<String> after = webClient.send(getRequest, HttpResponse.BodyHandlers.ofString());
+        Message expectedResult = new Message(9999, 9999, "text changed", 1669947792L);
+        Message actualResult = objectMapper.readValue(after.body(), Message.class);
+        Assertions.assertEquals(expectedResult, actualResult, "Expected="+expectedResult + ", Actual="+actualResult);
+    }
 }
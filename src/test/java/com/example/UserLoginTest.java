@@ -104,4 +104,34 @@ public class UserLoginTest {
         int status = response.statusCode();
         Assertions.assertEquals(401, status, "Expected Status Code 401 - Actual Code was: " + status);
     }
+
+    /**
+     * Sending an http request to POST localhost:8080/login with a username that does not exist yet, then
+     * registering that username through POST localhost:8080/register and logging in again
+     * 
+     * Expected Response:
+     * 	Status Code: 401 for the first login, 200 for the login after the registration
+     */
+    @Test
+    public void loginAfterRegisteringUnknownUsername() throws IOException, InterruptedException {
+    	String json = "{\"username\":\"lateuser\",\"password\":\"password\"}";
+        HttpRequest loginRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/login"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> firstLogin = webClient.send(loginRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(401, firstLogin.statusCode(), "Expected Status Code 401 - Actual Code was: " + firstLogin.statusCode());
+
+        HttpRequest registerRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/register"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> register = webClient.send(registerRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, register.statusCode(), "Expected Status Code 200 - Actual Code was: " + register.statusCode());
+
+        HttpResponse<String> secondLogin = webClient.send(loginRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, secondLogin.statusCode(), "Expected Status Code 200 - Actual Code was: " + secondLogin.statusCode());
+    }
 }
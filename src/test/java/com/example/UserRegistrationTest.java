@@ -62,6 +62,32 @@ public class UserRegistrationTest {
     }
 
 
+    /**
+     * Restarting the app with the pbkdf2 password hasher, then sending http requests to POST localhost:8080/register
+     * and POST localhost:8080/login
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the account with the submitted password, not the stored hash, from both
+     */
+    @Test
+    public void registerAndLoginNeverReturnHash() throws IOException, InterruptedException {
+        SpringApplication.exit(app);
+        app = SpringApplication.run(SocialMediaApp.class, "--socialmedia.password.hasher=pbkdf2", "--socialmedia.password.pbkdf2-iterations=1000");
+        Thread.sleep(500);
+        String json = "{\"username\":\"user\",\"password\":\"password\"}";
+        for (String path : new String[] {"/register", "/login"}) {
+            HttpRequest postRequest = HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8080" + path))
+                    .POST(HttpRequest.BodyPublishers.ofString(json))
+                    .header("Content-Type", "application/json")
+                    .build();
+            HttpResponse<String> response = webClient.send(postRequest, HttpResponse.BodyHandlers.ofString());
+            Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+            Assertions.assertEquals("password", objectMapper.readTree(response.body()).get("password").asText(), path + " returned " + response.body());
+        }
+    }
+
      /**
      * Sending an http request to POST localhost:8080/register when username already exists in system
      * 
@@ -0,0 +1,88 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+
+/**
+ * Which of the two tests runs depends on the runtime: under Java 21 or later the virtual thread executor is
+ * checked, under an older runtime the startup failure is.
+ */
+public class VirtualThreadsTest {
+    ApplicationContext app;
+    HttpClient webClient;
+
+    @BeforeEach
+    public void setUp() {
+        webClient = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        if (app != null) {
+            Thread.sleep(500);
+            SpringApplication.exit(app);
+        }
+    }
+
+    /**
+     * Starting the app with socialmedia.web.virtual-threads=true on a Java 21 runtime, then sending an http request to
+     * GET localhost:8080/accounts/9999/messages
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Tomcat's executor runs its tasks on virtual threads
+     */
+    @Test
+    public void virtualThreadExecutorOnJava21() throws Exception {
+        Assumptions.assumeTrue(Runtime.version().feature() >= 21, "needs a Java 21 runtime");
+        app = SpringApplication.run(SocialMediaApp.class, "--socialmedia.web.virtual-threads=true");
+        Thread.sleep(500);
+
+        TomcatWebServer server = (TomcatWebServer) ((ServletWebServerApplicationContext) app).getWebServer();
+        Executor executor = server.getTomcat().getConnector().getProtocolHandler().getExecutor();
+        CompletableFuture<Thread> thread = new CompletableFuture<>();
+        executor.execute(() -> thread.complete(Thread.currentThread()));
+        Object virtual = Thread.class.getMethod("isVirtual").invoke(thread.get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(Boolean.TRUE, virtual, "Expected a virtual thread, Actual=" + thread.get());
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/accounts/9999/messages"))
+                .build();
+        HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+    }
+
+    /**
+     * Starting the app with socialmedia.web.virtual-threads=true on a runtime older than Java 21
+     *
+     * Expected: the startup fails with an IllegalStateException naming the Java 21 requirement, instead of
+     * silently running on the platform pool
+     */
+    @Test
+    public void startupFailsBeforeJava21() throws IOException {
+        Assumptions.assumeTrue(Runtime.version().feature() < 21, "runs on a pre Java 21 runtime");
+        Throwable failure = Assertions.assertThrows(Exception.class,
+                () -> SpringApplication.run(SocialMediaApp.class, "--socialmedia.web.virtual-threads=true"));
+        while (failure.getCause() != null && !(failure instanceof IllegalStateException)) {
+            failure = failure.getCause();
+        }
+        Assertions.assertTrue(failure instanceof IllegalStateException, "Expected an IllegalStateException, Actual=" + failure);
+        Assertions.assertTrue(failure.getMessage().contains("Java 21"), "Actual message=" + failure.getMessage());
+    }
+}